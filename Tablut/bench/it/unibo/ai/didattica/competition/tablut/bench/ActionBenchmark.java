@@ -0,0 +1,64 @@
+package it.unibo.ai.didattica.competition.tablut.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import it.unibo.ai.didattica.competition.tablut.domain.Action;
+import it.unibo.ai.didattica.competition.tablut.domain.Move;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+
+/**
+ * Creation and parsing of actions, and conversion to packed moves
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ActionBenchmark {
+
+	private String from;
+	private String to;
+	private Action action;
+	private int move;
+
+	@Setup
+	public void setup() throws IOException {
+		this.from = "h3";
+		this.to = "e3";
+		this.action = new Action(this.from, this.to, Turn.WHITE);
+		this.move = Move.fromAction(this.action);
+	}
+
+	@Benchmark
+	public Action newAction() throws IOException {
+		return new Action(this.from, this.to, Turn.WHITE);
+	}
+
+	@Benchmark
+	public void parseCoordinates(Blackhole bh) {
+		bh.consume(this.action.getRowFrom());
+		bh.consume(this.action.getColumnFrom());
+		bh.consume(this.action.getRowTo());
+		bh.consume(this.action.getColumnTo());
+	}
+
+	@Benchmark
+	public int actionToMove() {
+		return Move.fromAction(this.action);
+	}
+
+	@Benchmark
+	public Action moveToAction() {
+		return Move.toAction(this.move);
+	}
+
+}
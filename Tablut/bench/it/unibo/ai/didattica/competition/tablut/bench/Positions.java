@@ -0,0 +1,63 @@
+package it.unibo.ai.didattica.competition.tablut.bench;
+
+import it.unibo.ai.didattica.competition.tablut.domain.State.Pawn;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+import it.unibo.ai.didattica.competition.tablut.domain.StateTablut;
+
+/**
+ * Positions shared by the benchmarks
+ *
+ */
+final class Positions {
+
+	private Positions() {
+	}
+
+	/**
+	 * @return the initial position of the Ashton rules, white to move
+	 */
+	static StateTablut initial() {
+		StateTablut state = new StateTablut();
+		state.setTurn(Turn.WHITE);
+		return state;
+	}
+
+	/**
+	 * @return a position where white captures the black pawn in d3 by moving
+	 *         h3-e3 (the other white pawn is in c3)
+	 */
+	static StateTablut whiteCaptures() {
+		StateTablut state = new StateTablut();
+		for (int i = 0; i < state.getBoardSize(); i++) {
+			for (int j = 0; j < state.getBoardSize(); j++) {
+				state.setPawn(i, j, Pawn.EMPTY);
+			}
+		}
+		state.setPawn(4, 4, Pawn.KING);
+		state.setPawn(2, 2, Pawn.WHITE);
+		state.setPawn(2, 3, Pawn.BLACK);
+		state.setPawn(2, 7, Pawn.WHITE);
+		state.setPawn(0, 3, Pawn.BLACK);
+		state.setPawn(8, 5, Pawn.BLACK);
+		state.setTurn(Turn.WHITE);
+		return state;
+	}
+
+	/**
+	 * @return a position in the middle of a game, black to move
+	 */
+	static StateTablut middleGame() {
+		StateTablut state = initial();
+		state.setPawn(2, 4, Pawn.EMPTY);
+		state.setPawn(2, 1, Pawn.WHITE);
+		state.setPawn(0, 3, Pawn.EMPTY);
+		state.setPawn(0, 1, Pawn.BLACK);
+		state.setPawn(4, 6, Pawn.EMPTY);
+		state.setPawn(6, 6, Pawn.WHITE);
+		state.setPawn(4, 7, Pawn.EMPTY);
+		state.setPawn(6, 7, Pawn.BLACK);
+		state.setTurn(Turn.BLACK);
+		return state;
+	}
+
+}
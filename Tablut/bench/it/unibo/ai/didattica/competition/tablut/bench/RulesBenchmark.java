@@ -0,0 +1,100 @@
+package it.unibo.ai.didattica.competition.tablut.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import it.unibo.ai.didattica.competition.tablut.domain.Action;
+import it.unibo.ai.didattica.competition.tablut.domain.BitboardState;
+import it.unibo.ai.didattica.competition.tablut.domain.GameAshtonTablut;
+import it.unibo.ai.didattica.competition.tablut.domain.Move;
+import it.unibo.ai.didattica.competition.tablut.domain.MoveGenerator;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+import it.unibo.ai.didattica.competition.tablut.domain.StateTablut;
+
+/**
+ * Move validation and application with the Ashton rules. checkMove changes
+ * the state it receives, so every invocation works on a fresh copy: compare
+ * with {@link StateBenchmark} for the cost of the copy alone.
+ *
+ * The capture checks are private to {@link GameAshtonTablut} and are measured
+ * through moves that capture a pawn.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RulesBenchmark {
+
+	private GameAshtonTablut rules;
+	private StateTablut initial;
+	private StateTablut capture;
+	private BitboardState captureBitboard;
+	private Action legal;
+	private Action legalCapture;
+	private Action illegalClimbing;
+	private Action illegalDiagonal;
+	private int packedCapture;
+	private int[] moves;
+
+	@Setup
+	public void setup() throws IOException {
+		// no draw by repetition, the same move is applied over and over
+		this.rules = new GameAshtonTablut(Integer.MAX_VALUE, 0);
+		this.initial = Positions.initial();
+		this.capture = Positions.whiteCaptures();
+		this.captureBitboard = BitboardState.fromState(this.capture);
+		this.legal = new Action("e3", "b3", Turn.WHITE);
+		this.legalCapture = new Action("h3", "e3", Turn.WHITE);
+		this.illegalClimbing = new Action("h3", "b3", Turn.WHITE);
+		this.illegalDiagonal = new Action("h3", "g4", Turn.WHITE);
+		this.packedCapture = Move.fromAction(this.legalCapture);
+		this.moves = new int[MoveGenerator.MAX_MOVES];
+	}
+
+	@Benchmark
+	public Object checkMoveLegal() throws Exception {
+		return this.rules.checkMove(this.initial.clone(), this.legal);
+	}
+
+	@Benchmark
+	public Object checkMoveCapture() throws Exception {
+		return this.rules.checkMove(this.capture.clone(), this.legalCapture);
+	}
+
+	@Benchmark
+	public Object checkMoveIllegalClimbing() {
+		try {
+			return this.rules.checkMove(this.capture.clone(), this.illegalClimbing);
+		} catch (Exception e) {
+			return e;
+		}
+	}
+
+	@Benchmark
+	public Object checkMoveIllegalDiagonal() {
+		try {
+			return this.rules.checkMove(this.capture.clone(), this.illegalDiagonal);
+		} catch (Exception e) {
+			return e;
+		}
+	}
+
+	@Benchmark
+	public Object applyMoveCaptureBitboard() {
+		return this.rules.applyMove(this.captureBitboard.clone(), this.packedCapture);
+	}
+
+	@Benchmark
+	public int generateMovesInitial() {
+		return MoveGenerator.generate(this.initial, this.moves);
+	}
+
+}
@@ -0,0 +1,48 @@
+package it.unibo.ai.didattica.competition.tablut.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.gson.Gson;
+
+import it.unibo.ai.didattica.competition.tablut.domain.StateTablut;
+
+/**
+ * Gson serialization of the state, as done by the server and the clients for
+ * every move
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializationBenchmark {
+
+	private Gson gson;
+	private StateTablut state;
+	private String json;
+
+	@Setup
+	public void setup() {
+		this.gson = new Gson();
+		this.state = Positions.middleGame();
+		this.json = this.gson.toJson(this.state);
+	}
+
+	@Benchmark
+	public String toJson() {
+		return this.gson.toJson(this.state);
+	}
+
+	@Benchmark
+	public StateTablut fromJson() {
+		return this.gson.fromJson(this.json, StateTablut.class);
+	}
+
+}
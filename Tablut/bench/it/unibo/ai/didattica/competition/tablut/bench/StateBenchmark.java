@@ -0,0 +1,74 @@
+package it.unibo.ai.didattica.competition.tablut.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import it.unibo.ai.didattica.competition.tablut.domain.BitboardState;
+import it.unibo.ai.didattica.competition.tablut.domain.StateTablut;
+
+/**
+ * Copy, comparison and hashing of states, for both the matrix and the
+ * bitboard representation
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StateBenchmark {
+
+	private StateTablut tablut;
+	private StateTablut tablutCopy;
+	private BitboardState bitboard;
+	private BitboardState bitboardCopy;
+
+	@Setup
+	public void setup() {
+		this.tablut = Positions.middleGame();
+		this.tablutCopy = Positions.middleGame();
+		this.bitboard = BitboardState.fromState(this.tablut);
+		this.bitboardCopy = BitboardState.fromState(this.tablut);
+	}
+
+	@Benchmark
+	public Object cloneStateTablut() {
+		return this.tablut.clone();
+	}
+
+	@Benchmark
+	public Object cloneBitboardState() {
+		return this.bitboard.clone();
+	}
+
+	@Benchmark
+	public boolean equalsStateTablut() {
+		return this.tablut.equals(this.tablutCopy);
+	}
+
+	@Benchmark
+	public boolean equalsBitboardState() {
+		return this.bitboard.equals(this.bitboardCopy);
+	}
+
+	@Benchmark
+	public int hashCodeStateTablut() {
+		return this.tablut.hashCode();
+	}
+
+	@Benchmark
+	public int hashCodeBitboardState() {
+		return this.bitboard.hashCode();
+	}
+
+	@Benchmark
+	public long zobristKeyStateTablut() {
+		return this.tablut.getZobristKey();
+	}
+
+}
@@ -0,0 +1,80 @@
+package it.unibo.ai.didattica.competition.tablut.client;
+
+import it.unibo.ai.didattica.competition.tablut.domain.Action;
+import it.unibo.ai.didattica.competition.tablut.domain.BitboardState;
+import it.unibo.ai.didattica.competition.tablut.domain.GameAshtonTablut;
+import it.unibo.ai.didattica.competition.tablut.domain.Move;
+import it.unibo.ai.didattica.competition.tablut.domain.State;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Alpha-beta player, see {@link AlphaBetaSearch}. It remembers the positions
+ * of the game it has seen, so that the search avoids the repetitions that the
+ * server would declare a draw.
+ */
+public class AlphaBetaPlayer implements Player {
+
+    private final AlphaBetaSearch search;
+    private final GameAshtonTablut gameRules = new GameAshtonTablut(Integer.MAX_VALUE, 0);
+    private final Set<Long> gameHistory = new HashSet<>();
+
+    // print the statistics of every search on stdout
+    private boolean verbose = true;
+
+    public AlphaBetaPlayer() {
+        this(AlphaBetaSearch.DEFAULT_TABLE_MEMORY);
+    }
+
+    /**
+     * @param tableMemory
+     *            memory of the transposition table, in MB
+     */
+    public AlphaBetaPlayer(int tableMemory) {
+        this.search = new AlphaBetaSearch(new TranspositionTable(tableMemory));
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * See {@link AlphaBetaSearch#setEarlyStop(boolean)}
+     */
+    public void setEarlyStop(boolean earlyStop) {
+        this.search.setEarlyStop(earlyStop);
+    }
+
+    @Override
+    public Action chooseMove(State state, long deadline) {
+        long startTime = System.currentTimeMillis();
+        BitboardState root = BitboardState.fromState(state);
+        this.gameHistory.add(root.getZobristKey());
+
+        int move = this.search.search(root, deadline, this.gameHistory);
+        if (move == Move.NONE) {
+            return null;
+        }
+        this.gameHistory.add(this.gameRules.applyMove(root.clone(), move).getZobristKey());
+
+        if (this.verbose) {
+            long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+            StringBuilder line = new StringBuilder();
+            for (int m : this.search.getBestLine()) {
+                line.append(' ').append(Move.boxName(Move.getRowFrom(m), Move.getColumnFrom(m)))
+                        .append(Move.boxName(Move.getRowTo(m), Move.getColumnTo(m)));
+            }
+            System.out.println("Alpha-beta completed depth " + this.search.getCompletedDepth() + " in " + elapsed
+                    + "ms, score " + this.search.getBestScore() + ", " + this.search.getNodes() + " nodes ("
+                    + this.search.getNodes() * 1000 / elapsed + "/s)"
+                    + (this.search.isEarlyStopped() ? ", stopped early" : "") + ", line:" + line);
+        }
+        return Move.toAction(move);
+    }
+
+    @Override
+    public void opponentToMove(State state) {
+        this.gameHistory.add(BitboardState.fromState(state).getZobristKey());
+    }
+}
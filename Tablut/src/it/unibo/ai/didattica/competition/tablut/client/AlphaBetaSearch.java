@@ -0,0 +1,579 @@
+package it.unibo.ai.didattica.competition.tablut.client;
+
+import it.unibo.ai.didattica.competition.tablut.domain.BitboardState;
+import it.unibo.ai.didattica.competition.tablut.domain.GameAshtonTablut;
+import it.unibo.ai.didattica.competition.tablut.domain.Move;
+import it.unibo.ai.didattica.competition.tablut.domain.MoveGenerator;
+import it.unibo.ai.didattica.competition.tablut.domain.State;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Pawn;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+
+import java.util.Set;
+
+/**
+ * An alpha-beta search over the Ashton rules: principal variation search
+ * (negamax form) with iterative deepening and aspiration windows, a
+ * {@link TranspositionTable}, moves ordered by the principal variation of
+ * the previous iteration, the move of the table, killer moves and the
+ * history heuristic, and a static evaluation of the leaves.
+ *
+ * Every iteration searches one ply deeper than the previous one, and the
+ * move of the last completed iteration is kept: when the deadline expires
+ * the iteration in progress is thrown away. The first iteration is never
+ * interrupted, so a move is always ready. Since an interrupted iteration
+ * is wasted, the search also stops early (see {@link #setEarlyStop(boolean)})
+ * when the next iteration is not expected to end before the deadline, or
+ * when the best move has not changed for {@value #STABLE_ITERATIONS}
+ * iterations and half of the time is spent.
+ *
+ * The rules engine has no draw by repetition: a position already met on the
+ * path from the root, or in the game (see {@link #search(State, long, Set)}),
+ * is scored as a draw by the search itself.
+ */
+public class AlphaBetaSearch {
+
+    /**
+     * Score of a won position; wins in fewer plies score more
+     */
+    public static final int WIN = 100000;
+    /**
+     * Scores beyond this value are wins or losses found by the search
+     */
+    public static final int WIN_BOUND = WIN - 1000;
+
+    /**
+     * Memory of the transposition table when none is given, in MB
+     */
+    public static final int DEFAULT_TABLE_MEMORY = 64;
+
+    private static final int MAX_PLY = 64;
+    // half width of the aspiration window around the previous score
+    private static final int ASPIRATION = 60;
+    // nodes searched between two looks at the clock
+    private static final int CHECK_INTERVAL = 1024;
+    // bounds of the growth of the time of an iteration to the next one
+    private static final long MIN_GROWTH = 2;
+    private static final long MAX_GROWTH = 10;
+    // iterations with the same best move after which the choice is stable
+    private static final int STABLE_ITERATIONS = 4;
+
+    // weights of the evaluation, from the point of view of white
+    private static final int WHITE_PAWN = 200;
+    private static final int BLACK_PAWN = 100;
+    private static final int KING_ROUTE = 300;
+    private static final int KING_ESCAPE = WIN_BOUND / 2;
+    private static final int KING_ATTACKER = 60;
+    private static final int KING_ALMOST_CAPTURED = 350;
+    private static final int KING_EDGE_DISTANCE = 15;
+    private static final int BLACK_CORNER_GUARD = 40;
+    // boxes next to the corners where black pawns block the escapes
+    private static final int[] CORNER_GUARDS = { Move.box(1, 2), Move.box(2, 1), Move.box(1, 6), Move.box(2, 7),
+            Move.box(6, 1), Move.box(7, 2), Move.box(6, 7), Move.box(7, 6) };
+    private static final int[][] DIRECTIONS = { { -1, 0 }, { 1, 0 }, { 0, -1 }, { 0, 1 } };
+
+    private final GameAshtonTablut gameRules;
+    private final TranspositionTable table;
+
+    private final int[][] moves = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    private final int[][] scores = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY][2];
+    // indexed by the player and by from * 81 + to
+    private final int[][] history = new int[2][81 * 81];
+    // triangular table of the principal variations
+    private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    // keys of the positions on the path from the root, and the moves played
+    private final long[] path = new long[MAX_PLY + 1];
+    private final int[] line = new int[MAX_PLY];
+
+    private Set<Long> gameHistory;
+    private long deadline;
+    private boolean interruptible;
+    private boolean stopped;
+    private long nodes;
+    private boolean earlyStop = true;
+    private boolean earlyStopped;
+
+    private int completedDepth;
+    private int bestScore;
+    private int[] bestLine = new int[0];
+
+    public AlphaBetaSearch() {
+        this(new TranspositionTable(DEFAULT_TABLE_MEMORY));
+    }
+
+    /**
+     * @param table
+     *            the transposition table, it can be shared with other searches
+     */
+    public AlphaBetaSearch(TranspositionTable table) {
+        // repetitions are handled by the search
+        this.gameRules = new GameAshtonTablut(Integer.MAX_VALUE, 0);
+        this.table = table;
+    }
+
+    public boolean isEarlyStop() {
+        return earlyStop;
+    }
+
+    /**
+     * Chooses whether the search can stop before the deadline, when the next
+     * iteration would not end in time or the best move is stable
+     */
+    public void setEarlyStop(boolean earlyStop) {
+        this.earlyStop = earlyStop;
+    }
+
+    /**
+     * Searches the state until the deadline, one ply deeper at every
+     * iteration, or less if the search stops early
+     *
+     * @param state
+     *            the root, with WHITE or BLACK to move; it is not modified
+     * @param deadline
+     *            as {@link System#currentTimeMillis()}; only the iterations
+     *            after the first one are interrupted
+     * @param gameHistory
+     *            Zobrist keys of the positions already met in the game, that
+     *            cannot be repeated without a draw; can be null
+     * @return the best move of the last completed iteration, packed as in
+     *         {@link Move}, {@link Move#NONE} if there are no legal moves
+     */
+    public int search(State state, long deadline, Set<Long> gameHistory) {
+        BitboardState root = BitboardState.fromState(state);
+        this.gameHistory = gameHistory;
+        this.deadline = deadline;
+        this.stopped = false;
+        this.interruptible = false;
+        this.nodes = 0;
+        this.completedDepth = 0;
+        this.earlyStopped = false;
+        this.bestLine = new int[0];
+        for (int[] k : this.killers) {
+            k[0] = Move.NONE;
+            k[1] = Move.NONE;
+        }
+        for (int[] h : this.history) {
+            for (int i = 0; i < h.length; i++) {
+                h[i] >>= 2;
+            }
+        }
+
+        int n = MoveGenerator.generate(root, this.moves[0]);
+        if (n == 0) {
+            return Move.NONE;
+        }
+        this.table.newSearch();
+        this.path[0] = root.getZobristKey();
+        int score = 0;
+        long start = System.currentTimeMillis();
+        long previousTime = 0;
+        int stable = 0;
+        for (int depth = 1; depth < MAX_PLY; depth++) {
+            long iterationStart = System.currentTimeMillis();
+            int result;
+            if (depth < 3 || Math.abs(score) >= WIN_BOUND) {
+                result = this.searchRoot(root, depth, -WIN - 1, WIN + 1);
+            } else {
+                int alpha = score - ASPIRATION;
+                int beta = score + ASPIRATION;
+                result = this.searchRoot(root, depth, alpha, beta);
+                if (!this.stopped && (result <= alpha || result >= beta)) {
+                    // outside the window: search again with the full window
+                    result = this.searchRoot(root, depth, -WIN - 1, WIN + 1);
+                }
+            }
+            if (this.stopped) {
+                break;
+            }
+            int previousBest = this.bestLine.length > 0 ? this.bestLine[0] : Move.NONE;
+            boolean scoreDropped = depth > 1 && result < score - ASPIRATION;
+            score = result;
+            this.completedDepth = depth;
+            this.bestScore = score;
+            this.bestLine = new int[this.pvLength[0]];
+            System.arraycopy(this.pv[0], 0, this.bestLine, 0, this.pvLength[0]);
+            this.interruptible = true;
+            long now = System.currentTimeMillis();
+            if (Math.abs(score) >= WIN_BOUND || now >= deadline) {
+                // a forced result, or no time for another iteration
+                break;
+            }
+            stable = this.bestLine.length > 0 && this.bestLine[0] == previousBest && !scoreDropped ? stable + 1 : 0;
+            if (this.earlyStop) {
+                // the next iteration takes as much longer as this one took
+                // compared to the previous one
+                long time = now - iterationStart;
+                long growth = previousTime > 0 ? time / previousTime : MIN_GROWTH;
+                long next = time * Math.max(MIN_GROWTH, Math.min(MAX_GROWTH, growth));
+                if (now + next > deadline) {
+                    this.earlyStopped = true;
+                    break;
+                }
+                if (stable >= STABLE_ITERATIONS && now - start >= (deadline - start) / 2) {
+                    this.earlyStopped = true;
+                    break;
+                }
+                previousTime = Math.max(1, time);
+            }
+        }
+        return this.bestLine.length > 0 ? this.bestLine[0] : this.moves[0][0];
+    }
+
+    private int searchRoot(BitboardState root, int depth, int alpha, int beta) {
+        this.pvLength[0] = 0;
+        int n = MoveGenerator.generate(root, this.moves[0]);
+        this.scoreMoves(0, n, root.getTurn(), Move.NONE);
+        int best = -WIN - 1;
+        for (int i = 0; i < n; i++) {
+            int move = this.nextMove(0, i, n);
+            int score = this.child(root, move, depth, i == 0, alpha, beta, 0);
+            if (this.stopped) {
+                return best;
+            }
+            if (score > best) {
+                best = score;
+                this.updatePv(0, move);
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the score of the position, from the point of view of the player
+     *         to move
+     */
+    private int alphaBeta(BitboardState state, int depth, int alpha, int beta, int ply) {
+        this.pvLength[ply] = ply;
+        if (++this.nodes % CHECK_INTERVAL == 0 && this.interruptible
+                && System.currentTimeMillis() >= this.deadline) {
+            this.stopped = true;
+            return 0;
+        }
+        if (depth <= 0 || ply >= MAX_PLY - 1) {
+            return evaluate(state);
+        }
+
+        long key = state.getZobristKey();
+        long entry = this.table.probe(key);
+        int tableMove = Move.NONE;
+        if (entry != 0) {
+            tableMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER && score >= beta
+                        || bound == TranspositionTable.UPPER && score <= alpha) {
+                    return score;
+                }
+            }
+        }
+
+        Turn turn = state.getTurn();
+        int n = MoveGenerator.generate(state, this.moves[ply]);
+        if (n == 0) {
+            // no legal moves: lost
+            return -(WIN - ply);
+        }
+        this.scoreMoves(ply, n, turn, tableMove);
+        int originalAlpha = alpha;
+        int best = -WIN - 1;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < n; i++) {
+            int move = this.nextMove(ply, i, n);
+            int score = this.child(state, move, depth, i == 0, alpha, beta, ply);
+            if (this.stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    this.updatePv(ply, move);
+                    if (score >= beta) {
+                        this.storeCutoff(ply, move, depth, turn);
+                        break;
+                    }
+                }
+            }
+        }
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        this.table.store(key, bound == TranspositionTable.UPPER ? Move.NONE : bestMove, toTable(best, ply), depth,
+                bound);
+        return best;
+    }
+
+    // wins are stored as distance from the position, not from the root
+    private static int toTable(int score, int ply) {
+        if (score >= WIN_BOUND) {
+            return score + ply;
+        }
+        if (score <= -WIN_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= WIN_BOUND) {
+            return score - ply;
+        }
+        if (score <= -WIN_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Plays a move and searches the position reached: with the full window
+     * for the first move, with a null window for the others, searched again
+     * with the full window if they turn out better than the first one
+     *
+     * @return the score of the move, from the point of view of the player
+     *         that makes it
+     */
+    private int child(BitboardState state, int move, int depth, boolean first, int alpha, int beta, int ply) {
+        this.line[ply] = move;
+        BitboardState next = (BitboardState) this.gameRules.applyMove(state.clone(), move);
+        Turn after = next.getTurn();
+        if (after == Turn.WHITEWIN || after == Turn.BLACKWIN) {
+            boolean won = (after == Turn.WHITEWIN) == (Move.getTurn(move) == Turn.WHITE);
+            this.pvLength[ply + 1] = ply + 1;
+            return won ? WIN - ply - 1 : -(WIN - ply - 1);
+        }
+        long key = next.getZobristKey();
+        if (this.isRepetition(key, ply + 1)) {
+            this.pvLength[ply + 1] = ply + 1;
+            return 0;
+        }
+        this.path[ply + 1] = key;
+        if (first) {
+            return -this.alphaBeta(next, depth - 1, -beta, -alpha, ply + 1);
+        }
+        int score = -this.alphaBeta(next, depth - 1, -alpha - 1, -alpha, ply + 1);
+        if (score > alpha && score < beta && !this.stopped) {
+            score = -this.alphaBeta(next, depth - 1, -beta, -alpha, ply + 1);
+        }
+        return score;
+    }
+
+    private boolean isRepetition(long key, int ply) {
+        // only positions with the same player to move can be equal
+        for (int i = ply - 2; i >= 0; i -= 2) {
+            if (this.path[i] == key) {
+                return true;
+            }
+        }
+        return this.gameHistory != null && this.gameHistory.contains(key);
+    }
+
+    private void updatePv(int ply, int move) {
+        this.pv[ply][ply] = move;
+        int length = this.pvLength[ply + 1];
+        for (int i = ply + 1; i < length; i++) {
+            this.pv[ply][i] = this.pv[ply + 1][i];
+        }
+        this.pvLength[ply] = Math.max(length, ply + 1);
+    }
+
+    private void storeCutoff(int ply, int move, int depth, Turn turn) {
+        if (this.killers[ply][0] != move) {
+            this.killers[ply][1] = this.killers[ply][0];
+            this.killers[ply][0] = move;
+        }
+        this.history[turn == Turn.WHITE ? 0 : 1][historyIndex(move)] += depth * depth;
+    }
+
+    private static int historyIndex(int move) {
+        return Move.getFrom(move) * 81 + Move.getTo(move);
+    }
+
+    /**
+     * Gives the moves of a ply their ordering score: the move of the previous
+     * principal variation first, then the move of the transposition table,
+     * the killer moves, and the others by history
+     */
+    private void scoreMoves(int ply, int n, Turn turn, int tableMove) {
+        int[] list = this.moves[ply];
+        int[] score = this.scores[ply];
+        int pvMove = ply < this.bestLine.length && this.followsBestLine(ply) ? this.bestLine[ply] : Move.NONE;
+        int[] h = this.history[turn == Turn.WHITE ? 0 : 1];
+        for (int i = 0; i < n; i++) {
+            int move = list[i];
+            if (move == pvMove) {
+                score[i] = Integer.MAX_VALUE;
+            } else if (move == tableMove) {
+                score[i] = Integer.MAX_VALUE - 1;
+            } else if (move == this.killers[ply][0]) {
+                score[i] = Integer.MAX_VALUE - 2;
+            } else if (move == this.killers[ply][1]) {
+                score[i] = Integer.MAX_VALUE - 3;
+            } else {
+                score[i] = h[historyIndex(move)];
+            }
+        }
+    }
+
+    // true if the moves from the root to this ply are the ones of the last
+    // principal variation
+    private boolean followsBestLine(int ply) {
+        for (int i = 0; i < ply; i++) {
+            if (this.line[i] != this.bestLine[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves the best of the remaining moves in position i, and returns it
+     */
+    private int nextMove(int ply, int i, int n) {
+        int[] list = this.moves[ply];
+        int[] score = this.scores[ply];
+        int best = i;
+        for (int j = i + 1; j < n; j++) {
+            if (score[j] > score[best]) {
+                best = j;
+            }
+        }
+        int move = list[best];
+        list[best] = list[i];
+        list[i] = move;
+        int s = score[best];
+        score[best] = score[i];
+        score[i] = s;
+        return move;
+    }
+
+    /**
+     * Static evaluation
+     *
+     * @return the score of the position, from the point of view of the player
+     *         to move
+     */
+    public static int evaluate(BitboardState state) {
+        int score = evaluateForWhite(state);
+        return state.getTurn() == Turn.BLACK ? -score : score;
+    }
+
+    private static int evaluateForWhite(BitboardState state) {
+        int whitePawns = Long.bitCount(state.getWhiteLow()) + Integer.bitCount(state.getWhiteHigh());
+        int blackPawns = Long.bitCount(state.getBlackLow()) + Integer.bitCount(state.getBlackHigh());
+        int score = WHITE_PAWN * whitePawns - BLACK_PAWN * blackPawns;
+
+        for (int box : CORNER_GUARDS) {
+            if (state.getPawn(Move.row(box), Move.column(box)) == Pawn.BLACK) {
+                score -= BLACK_CORNER_GUARD;
+            }
+        }
+
+        int king = state.getKingBox();
+        if (king < 0) {
+            return score;
+        }
+        int row = Move.row(king);
+        int column = Move.column(king);
+
+        // free lines from the king to an escape
+        int routes = 0;
+        for (int[] d : DIRECTIONS) {
+            if (freeLineToEdge(state, row, column, d[0], d[1])) {
+                routes++;
+            }
+        }
+        if (routes > 0 && state.getTurn() == Turn.WHITE || routes > 1) {
+            // the king escapes at the next move: black cannot block two lines
+            score += KING_ESCAPE;
+        } else {
+            score += KING_ROUTE * routes;
+        }
+
+        // black pawns and hostile boxes around the king
+        int attackers = 0;
+        for (int[] d : DIRECTIONS) {
+            int r = row + d[0];
+            int c = column + d[1];
+            if (r < 0 || r > 8 || c < 0 || c > 8) {
+                continue;
+            }
+            Pawn p = state.getPawn(r, c);
+            if (p == Pawn.BLACK || p == Pawn.THRONE || MoveGenerator.isCitadel(r, c)) {
+                attackers++;
+            }
+        }
+        // on the throne the king is captured by 4 pawns, next to it by 3,
+        // elsewhere by 2
+        int distanceFromThrone = Math.abs(row - 4) + Math.abs(column - 4);
+        int needed = distanceFromThrone == 0 ? 4 : distanceFromThrone == 1 ? 3 : 2;
+        score -= KING_ATTACKER * attackers;
+        if (attackers >= needed - 1) {
+            score -= KING_ALMOST_CAPTURED;
+        }
+
+        int edge = Math.min(Math.min(row, 8 - row), Math.min(column, 8 - column));
+        score -= KING_EDGE_DISTANCE * edge;
+        return score;
+    }
+
+    private static boolean freeLineToEdge(BitboardState state, int row, int column, int dr, int dc) {
+        int r = row + dr;
+        int c = column + dc;
+        while (r >= 0 && r <= 8 && c >= 0 && c <= 8) {
+            if (state.getPawn(r, c) != Pawn.EMPTY || MoveGenerator.isCitadel(r, c)) {
+                return false;
+            }
+            r += dr;
+            c += dc;
+        }
+        // the king is not already on the edge
+        return r - dr != row || c - dc != column;
+    }
+
+    /**
+     * @return the depth of the last completed iteration
+     */
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    /**
+     * @return the score of the last completed iteration, from the point of
+     *         view of the player to move at the root
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * @return the principal variation of the last completed iteration
+     */
+    public int[] getBestLine() {
+        return bestLine.clone();
+    }
+
+    /**
+     * @return true if the last search stopped before the deadline because
+     *         its result could not change
+     */
+    public boolean isEarlyStopped() {
+        return earlyStopped;
+    }
+
+    /**
+     * @return the nodes searched by the last call of
+     *         {@link #search(State, long, Set)}
+     */
+    public long getNodes() {
+        return nodes;
+    }
+}
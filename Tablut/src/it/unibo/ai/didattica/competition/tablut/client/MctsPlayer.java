@@ -0,0 +1,340 @@
+package it.unibo.ai.didattica.competition.tablut.client;
+
+import it.unibo.ai.didattica.competition.tablut.domain.Action;
+import it.unibo.ai.didattica.competition.tablut.domain.Move;
+import it.unibo.ai.didattica.competition.tablut.domain.State;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Monte Carlo tree search player. With more than one thread every thread
+ * grows its own tree from the same root (root parallelism) and the
+ * statistics of the moves of the root are merged at the end; the trees are
+ * kept between moves, and can grow on the opponent's time too (see
+ * {@link #startPondering(State)}). The trees can be graphs where the
+ * transpositions share their node, see {@link MonteCarloGraphSearch}.
+ *
+ * The move chosen is the one with the best mean reward. With the early stop
+ * (see {@link #setEarlyStop(boolean)}) it is the most visited one instead,
+ * so that the search can end before the deadline when the choice is
+ * decided: every {@value #EARLY_STOP_INTERVAL}ms the statistics are merged,
+ * and if the lead in visits of the most visited move is larger than the
+ * simulations the remaining time allows at the rate measured so far, no
+ * other move can catch up with it.
+ */
+public class MctsPlayer implements Player {
+
+    // number of independent trees searched in parallel (root parallelism)
+    private final int threads;
+    private final MonteCarloTreeSearch[] searches;
+    private ExecutorService executor;
+
+    // keep searching while the opponent thinks
+    private boolean pondering = true;
+    private volatile boolean stopPondering;
+    private final List<Future<?>> ponderTasks = new ArrayList<>();
+
+    /**
+     * Time between two checks of the early stop, in milliseconds
+     */
+    public static final long EARLY_STOP_INTERVAL = 100;
+
+    // print the statistics of every search on stdout
+    private boolean verbose = true;
+    // stop the search when the best move cannot change
+    private boolean earlyStop = true;
+
+    /**
+     * @param role
+     *            the player the search plays for
+     * @param threads
+     *            number of trees searched in parallel
+     * @param treeMemory
+     *            memory for the search trees of all the threads, in MB
+     * @param seed
+     *            seed of the random simulations
+     */
+    public MctsPlayer(Turn role, int threads, int treeMemory, long seed) {
+        this(role, threads, treeMemory, seed, false);
+    }
+
+    /**
+     * @param transpositions
+     *            true to search graphs where the transpositions share their
+     *            node ({@link MonteCarloGraphSearch}) instead of trees
+     */
+    public MctsPlayer(Turn role, int threads, int treeMemory, long seed, boolean transpositions) {
+        this.threads = Math.max(1, threads);
+        this.searches = new MonteCarloTreeSearch[this.threads];
+        long memory = treeMemory * 1024L * 1024L / this.threads;
+        for (int i = 0; i < this.threads; i++) {
+            if (transpositions) {
+                long maxEdges = memory / MonteCarloGraphSearch.bytesPerEdge();
+                this.searches[i] = new MonteCarloGraphSearch(role, seed + i, (int) Math.min(Integer.MAX_VALUE - 8, maxEdges));
+            } else {
+                long maxNodes = memory / MonteCarloTreeSearch.bytesPerNode();
+                this.searches[i] = new MonteCarloTreeSearch(role, seed + i, (int) Math.min(Integer.MAX_VALUE - 8, maxNodes));
+            }
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    public boolean isEarlyStop() {
+        return earlyStop;
+    }
+
+    /**
+     * Chooses whether the search can stop before the deadline; with the early
+     * stop the move chosen is the most visited one, not the one with the best
+     * mean
+     */
+    public void setEarlyStop(boolean earlyStop) {
+        this.earlyStop = earlyStop;
+    }
+
+    public boolean isPondering() {
+        return pondering;
+    }
+
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+    }
+
+    @Override
+    public Action chooseMove(State currentState, long endTime) {
+        this.stopPondering();
+        long startTime = System.currentTimeMillis();
+
+        // every thread grows its own tree from the same root, keeping what it
+        // found for this position during the previous turn
+        int reusedVisits = 0;
+        for (MonteCarloTreeSearch search : this.searches) {
+            if (search.advance(currentState)) {
+                reusedVisits += search.getRootVisits();
+            }
+        }
+        Map<Integer, double[]> statistics;
+        boolean decided = false;
+        do {
+            long now = System.currentTimeMillis();
+            long sliceEnd = this.earlyStop ? Math.min(endTime, now + EARLY_STOP_INTERVAL) : endTime;
+            this.search(sliceEnd);
+            statistics = this.rootStatistics();
+            now = System.currentTimeMillis();
+            if (this.earlyStop && now < endTime) {
+                decided = this.isDecided(statistics, now - startTime, endTime - now);
+            }
+        } while (!decided && System.currentTimeMillis() < endTime);
+
+        int simulationCount = 0;
+        int treeSize = 0;
+        for (MonteCarloTreeSearch search : this.searches) {
+            simulationCount += search.getSimulationCount();
+            treeSize += search.getTreeSize();
+        }
+
+        if (this.verbose) {
+            System.out.println("MCTS completed " + simulationCount + " simulations on " + this.threads + " threads in "
+                    + (System.currentTimeMillis() - startTime) + "ms (" + reusedVisits + " visits reused, " + treeSize
+                    + " nodes)" + (decided ? ", stopped early." : "."));
+        }
+
+        int bestMove = this.earlyStop ? mostVisited(statistics) : bestMean(statistics);
+
+        if (bestMove == Move.NONE && !statistics.isEmpty()) {
+            bestMove = statistics.keySet().iterator().next();
+        }
+
+        if (bestMove == Move.NONE) {
+            if (this.verbose) {
+                System.out.println("MCTS found no best child, picking random move.");
+            }
+            return this.searches[0].randomRootMove();
+        }
+
+        return Move.toAction(bestMove);
+    }
+
+    // runs all the trees until the given time
+    private void search(long endTime) {
+        if (this.threads == 1) {
+            this.searches[0].search(endTime);
+        } else {
+            List<Future<?>> running = new ArrayList<>();
+            for (MonteCarloTreeSearch search : this.searches) {
+                running.add(this.executor().submit(() -> search.search(endTime)));
+            }
+            waitFor(running);
+        }
+    }
+
+    // merges the statistics of the root children of all the trees
+    private Map<Integer, double[]> rootStatistics() {
+        Map<Integer, double[]> statistics = new HashMap<>();
+        for (MonteCarloTreeSearch search : this.searches) {
+            search.addRootStatistics(statistics);
+        }
+        return statistics;
+    }
+
+    /**
+     * @return true if no move can reach the visits of the most visited one in
+     *         the remaining time
+     */
+    private boolean isDecided(Map<Integer, double[]> statistics, long elapsed, long remaining) {
+        if (elapsed <= 0) {
+            return false;
+        }
+        int simulationCount = 0;
+        for (MonteCarloTreeSearch search : this.searches) {
+            simulationCount += search.getSimulationCount();
+        }
+        double mostVisits = 0;
+        double secondVisits = 0;
+        for (double[] stats : statistics.values()) {
+            if (stats[0] > mostVisits) {
+                secondVisits = mostVisits;
+                mostVisits = stats[0];
+            } else if (stats[0] > secondVisits) {
+                secondVisits = stats[0];
+            }
+        }
+        double remainingSimulations = (double) simulationCount * remaining / elapsed;
+        return mostVisits > 0 && mostVisits - secondVisits > remainingSimulations;
+    }
+
+    /**
+     * @return the move with the best mean reward, {@link Move#NONE} if no
+     *         move has been visited
+     */
+    private static int bestMean(Map<Integer, double[]> statistics) {
+        int bestMove = Move.NONE;
+        double bestMean = -1;
+        for (Map.Entry<Integer, double[]> e : statistics.entrySet()) {
+            double[] stats = e.getValue();
+            if (stats[0] > 0 && stats[1] / stats[0] > bestMean) {
+                bestMean = stats[1] / stats[0];
+                bestMove = e.getKey();
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * @return the most visited move, the best mean breaking the ties;
+     *         {@link Move#NONE} if no move has been visited
+     */
+    private static int mostVisited(Map<Integer, double[]> statistics) {
+        int bestMove = Move.NONE;
+        double mostVisits = 0;
+        double bestMean = -1;
+        for (Map.Entry<Integer, double[]> e : statistics.entrySet()) {
+            double[] stats = e.getValue();
+            if (stats[0] == 0) {
+                continue;
+            }
+            double mean = stats[1] / stats[0];
+            if (stats[0] > mostVisits || stats[0] == mostVisits && mean > bestMean) {
+                mostVisits = stats[0];
+                bestMean = mean;
+                bestMove = e.getKey();
+            }
+        }
+        return bestMove;
+    }
+
+    @Override
+    public void opponentToMove(State state) {
+        if (this.pondering) {
+            this.stopPondering();
+            this.startPondering(state);
+        }
+    }
+
+    @Override
+    public void gameEnded(State state) {
+        this.shutdown();
+    }
+
+    /**
+     * Starts growing the trees from a state where the opponent has to move.
+     * When its move arrives the matching subtree becomes the new root (see
+     * {@link MonteCarloTreeSearch#advance(State)}).
+     */
+    public void startPondering(State opponentState) {
+        this.stopPondering = false;
+        for (MonteCarloTreeSearch search : this.searches) {
+            search.advance(opponentState);
+            this.ponderTasks.add(this.executor().submit(() -> search.search(Long.MAX_VALUE, () -> this.stopPondering)));
+        }
+    }
+
+    /**
+     * Stops the pondering tasks, if any, and waits for them to end so that
+     * the trees can be used again by this thread
+     */
+    public void stopPondering() {
+        if (this.ponderTasks.isEmpty()) {
+            return;
+        }
+        this.stopPondering = true;
+        waitFor(this.ponderTasks);
+        int simulationCount = 0;
+        for (MonteCarloTreeSearch search : this.searches) {
+            simulationCount += search.getSimulationCount();
+        }
+        this.ponderTasks.clear();
+        if (this.verbose) {
+            System.out.println("Pondered " + simulationCount + " simulations on the opponent's time.");
+        }
+    }
+
+    /**
+     * Stops the searches and the threads
+     */
+    public void shutdown() {
+        this.stopPondering = true;
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    private ExecutorService executor() {
+        if (this.executor == null) {
+            this.executor = Executors.newFixedThreadPool(this.threads, r -> {
+                Thread t = new Thread(r, "mcts");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return this.executor;
+    }
+
+    private static void waitFor(List<Future<?>> tasks) {
+        for (Future<?> f : tasks) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                e.getCause().printStackTrace();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
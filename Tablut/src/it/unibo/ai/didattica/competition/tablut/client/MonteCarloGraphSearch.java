@@ -0,0 +1,277 @@
+package it.unibo.ai.didattica.competition.tablut.client;
+
+import it.unibo.ai.didattica.competition.tablut.domain.BitboardState;
+import it.unibo.ai.didattica.competition.tablut.domain.Move;
+import it.unibo.ai.didattica.competition.tablut.domain.MoveGenerator;
+import it.unibo.ai.didattica.competition.tablut.domain.State;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Monte Carlo tree search where the transpositions share their node: the
+ * search grows a {@link NodeGraph} instead of a tree, so the simulations run
+ * from a position reached by different orders of moves all add up in the
+ * same statistics, and its subtree is grown once.
+ *
+ * In a graph a node has many parents, so the rewards are propagated along
+ * the path of the iteration, not through the parents. Every edge counts its
+ * own visits: the exploration term of the selection uses the visits of the
+ * edge, and the mean uses the statistics of the node the edge leads to,
+ * gathered through all its parents. A move that goes back to a position
+ * already on the path is scored as a draw, as the server does with repeated
+ * states.
+ *
+ * Rollouts, move ordering and rewards are the ones of
+ * {@link MonteCarloTreeSearch}.
+ */
+public class MonteCarloGraphSearch extends MonteCarloTreeSearch {
+
+    // nodes allocated for every edge of the memory budget
+    private static final int EDGES_PER_NODE = 8;
+
+    private NodeGraph graph;
+    // second graph, used when a node is promoted to root
+    private NodeGraph spare;
+    private int root;
+
+    // nodes and edges of the path of the current iteration; the edge of the
+    // root is NONE, the node reached by a repetition is NONE
+    private int[] pathNodes = new int[256];
+    private int[] pathEdges = new int[256];
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+    /**
+     * @param player
+     *            the player the rewards are computed for
+     * @param seed
+     *            seed of the random generator
+     * @param maxEdges
+     *            maximum number of edges of the graph, with a node every
+     *            {@value #EDGES_PER_NODE} edges; see {@link #bytesPerEdge()}
+     */
+    public MonteCarloGraphSearch(Turn player, long seed, int maxEdges) {
+        super(player, seed, maxEdges);
+    }
+
+    /**
+     * @return the memory taken by every edge of the maximum graph size,
+     *         nodes and the graph used when the graph is reused included
+     */
+    public static int bytesPerEdge() {
+        return 2 * (NodeGraph.BYTES_PER_EDGE + NodeGraph.BYTES_PER_NODE / EDGES_PER_NODE + 1);
+    }
+
+    @Override
+    public void reset(State currentState) {
+        if (this.graph == null) {
+            this.graph = this.newGraph();
+        }
+        this.simulationCount = 0;
+        this.rootState = BitboardState.fromState(currentState);
+        this.graph.clear();
+        this.root = this.graph.add(this.rootState.getZobristKey());
+    }
+
+    /**
+     * Moves the root to the given state. If the state is already in the
+     * graph, whichever the path that led to it, the nodes reachable from it
+     * are kept.
+     *
+     * @return true if part of the graph has been reused
+     */
+    @Override
+    public boolean advance(State currentState) {
+        BitboardState target = BitboardState.fromState(currentState);
+        int found = this.graph == null ? NodeGraph.NONE : this.graph.find(target.getZobristKey());
+        if (found == NodeGraph.NONE) {
+            reset(target);
+            return false;
+        }
+        this.simulationCount = 0;
+        this.rootState = target;
+        if (this.spare == null) {
+            this.spare = this.newGraph();
+        }
+        this.graph.copyReachable(found, this.spare);
+        NodeGraph old = this.graph;
+        this.graph = this.spare;
+        this.spare = old;
+        this.root = 0;
+        return true;
+    }
+
+    private NodeGraph newGraph() {
+        return new NodeGraph(this.maxNodes / EDGES_PER_NODE + 1, this.maxNodes);
+    }
+
+    @Override
+    public int getRootVisits() {
+        return graph == null ? 0 : graph.visits[root];
+    }
+
+    /**
+     * @return the number of nodes of the graph
+     */
+    @Override
+    public int getTreeSize() {
+        return graph == null ? 0 : graph.size();
+    }
+
+    @Override
+    public void search(long endTime, BooleanSupplier stopped) {
+        while (System.currentTimeMillis() < endTime && !stopped.getAsBoolean()) {
+            this.gameRules.clearDrawConditions();
+            State state = this.rootState.clone();
+
+            // selection and expansion: descend until a node never visited
+            int node = this.root;
+            int length = 1;
+            this.pathNodes[0] = node;
+            this.pathEdges[0] = NodeGraph.NONE;
+            double result = -1;
+            while (!isTerminal(state)) {
+                if (!graph.isExpanded(node) && !expansion(node, state)) {
+                    break; // graph full: simulate from here
+                }
+                if (graph.edgeCount[node] == 0) {
+                    break;
+                }
+                int edge = selection(node);
+                state = this.gameRules.applyMove(state, graph.move[edge]);
+                int child = graph.target[edge];
+                if (child == NodeGraph.NONE) {
+                    long key = state.getZobristKey();
+                    child = graph.find(key);
+                    if (child == NodeGraph.NONE) {
+                        child = graph.add(key);
+                    }
+                    if (child == NodeGraph.NONE) {
+                        // graph full: simulate from the new position, that
+                        // gets no node
+                        break;
+                    }
+                    graph.target[edge] = child;
+                }
+                if (this.onPath(child, length)) {
+                    // back to a position of this path: a draw
+                    this.push(length++, NodeGraph.NONE, edge);
+                    result = 0.5;
+                    break;
+                }
+                this.push(length++, child, edge);
+                node = child;
+                if (graph.visits[node] == 0) {
+                    break;
+                }
+            }
+
+            if (result < 0) {
+                result = simulation(state, this.player);
+            }
+            backpropagation(length, result);
+            simulationCount++;
+        }
+    }
+
+    private boolean expansion(int node, State state) {
+        int n = orderedMoves(state, this.moves);
+        return graph.expand(node, this.moves, n);
+    }
+
+    /**
+     * @return the edge with the best UCT value, the first one never followed
+     *         if any
+     */
+    private int selection(int node) {
+        double logParentVisits = Math.log(Math.max(1, graph.visits[node]));
+        int first = graph.firstEdge[node];
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int edge = first; edge < first + graph.edgeCount[node]; edge++) {
+            int visits = graph.edgeVisits[edge];
+            if (visits == 0) {
+                return edge; // prioritize unvisited
+            }
+            double value = this.mean(graph.target[edge]) + UCT_C * Math.sqrt(logParentVisits / visits);
+            if (value > bestValue) {
+                bestValue = value;
+                best = edge;
+            }
+        }
+        return best;
+    }
+
+    // mean reward of a node, for the player that moves into it
+    private double mean(int node) {
+        if (node == NodeGraph.NONE || graph.visits[node] == 0) {
+            return 0.5;
+        }
+        return graph.wins[node] / graph.visits[node];
+    }
+
+    private boolean onPath(int node, int length) {
+        for (int i = 0; i < length; i++) {
+            if (this.pathNodes[i] == node) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void push(int i, int node, int edge) {
+        if (i == this.pathNodes.length) {
+            this.pathNodes = Arrays.copyOf(this.pathNodes, 2 * i);
+            this.pathEdges = Arrays.copyOf(this.pathEdges, 2 * i);
+        }
+        this.pathNodes[i] = node;
+        this.pathEdges[i] = edge;
+    }
+
+    private void backpropagation(int length, double result) {
+        // the root is credited for the side that did not move there, like
+        // every other node: it can be reached again through an edge
+        boolean rootMovedByPlayer = this.rootState.getTurn() != this.player;
+        for (int i = 0; i < length; i++) {
+            int edge = this.pathEdges[i];
+            if (edge != NodeGraph.NONE) {
+                graph.edgeVisits[edge]++;
+            }
+            int node = this.pathNodes[i];
+            if (node == NodeGraph.NONE) {
+                continue;
+            }
+            graph.visits[node]++;
+            boolean movedByPlayer = edge == NodeGraph.NONE ? rootMovedByPlayer
+                    : Move.getTurn(graph.move[edge]) == this.player;
+            if (movedByPlayer) {
+                graph.wins[node] += result;
+            } else {
+                graph.wins[node] += (1.0 - result);
+            }
+        }
+    }
+
+    /**
+     * Adds the statistics of the moves of the root: the visits of every edge,
+     * and as many rewards as the mean of the node it leads to
+     */
+    @Override
+    public void addRootStatistics(Map<Integer, double[]> statistics) {
+        if (!graph.isExpanded(root)) {
+            return;
+        }
+        int first = graph.firstEdge[root];
+        for (int edge = first; edge < first + graph.edgeCount[root]; edge++) {
+            int visits = graph.edgeVisits[edge];
+            if (visits == 0) {
+                continue;
+            }
+            double[] stats = statistics.computeIfAbsent(graph.move[edge], k -> new double[2]);
+            stats[0] += visits;
+            stats[1] += visits * this.mean(graph.target[edge]);
+        }
+    }
+}
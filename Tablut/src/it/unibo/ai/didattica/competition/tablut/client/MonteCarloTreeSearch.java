@@ -0,0 +1,521 @@
+package it.unibo.ai.didattica.competition.tablut.client;
+
+import it.unibo.ai.didattica.competition.tablut.domain.Action;
+import it.unibo.ai.didattica.competition.tablut.domain.BitboardState;
+import it.unibo.ai.didattica.competition.tablut.domain.GameAshtonTablut;
+import it.unibo.ai.didattica.competition.tablut.domain.Move;
+import it.unibo.ai.didattica.competition.tablut.domain.MoveGenerator;
+import it.unibo.ai.didattica.competition.tablut.domain.State;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Pawn;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A Monte Carlo tree search over the Ashton rules. Every instance owns its
+ * tree, its rules engine and its random generator, so several instances can
+ * search the same position on different threads and their root statistics
+ * can be merged afterwards (root parallelism, see {@link MctsPlayer}).
+ *
+ * The tree is kept in a {@link NodePool} of fixed capacity: nodes only hold
+ * the packed move that leads to them, and states are rebuilt from the root
+ * state while descending the tree. When the pool is full the tree stops
+ * growing and the remaining iterations refine the nodes already there.
+ */
+public class MonteCarloTreeSearch {
+
+    /**
+     * Default capacity of the pool, about 28 MB per tree
+     */
+    public static final int DEFAULT_MAX_NODES = 1 << 20;
+
+    // UCT constant
+    static final double UCT_C = 1.4;
+    // rollout randomness (epsilon)
+    private static final double ROLLOUT_EPSILON = 0.10;
+    // max moves in a single simulation
+    private static final int MAX_SIM_MOVES = 150;
+
+    // the fields without modifier are used by MonteCarloGraphSearch too
+    final Turn player;
+    final GameAshtonTablut gameRules;
+    private final Random random;
+    final int maxNodes;
+
+    private NodePool pool;
+    // second pool, used when a subtree is promoted to root
+    private NodePool spare;
+    BitboardState rootState;
+    int simulationCount;
+
+    private final int[] expansionMoves = new int[MoveGenerator.MAX_MOVES];
+    private final int[] expansionScores = new int[MoveGenerator.MAX_MOVES];
+    private final int[] rolloutMoves = new int[MoveGenerator.MAX_MOVES];
+    private final int[] rolloutScores = new int[MoveGenerator.MAX_MOVES];
+
+    /**
+     * @param player
+     *            the player the rewards are computed for
+     * @param seed
+     *            seed of the random generator, use different seeds for
+     *            searches running in parallel
+     */
+    public MonteCarloTreeSearch(Turn player, long seed) {
+        this(player, seed, DEFAULT_MAX_NODES);
+    }
+
+    /**
+     * @param player
+     *            the player the rewards are computed for
+     * @param seed
+     *            seed of the random generator, use different seeds for
+     *            searches running in parallel
+     * @param maxNodes
+     *            maximum number of nodes of the tree; up to twice this
+     *            number is allocated, see {@link #bytesPerNode()}
+     */
+    public MonteCarloTreeSearch(Turn player, long seed, int maxNodes) {
+        this.player = player;
+        this.gameRules = new GameAshtonTablut(0, 0);
+        this.random = new Random(seed);
+        this.maxNodes = Math.max(1, maxNodes);
+    }
+
+    /**
+     * @return the memory taken by every node of the maximum tree size, taking
+     *         into account the pool used when the tree is reused
+     */
+    public static int bytesPerNode() {
+        return 2 * NodePool.BYTES_PER_NODE;
+    }
+
+    /**
+     * Throws away the current tree and starts a new one from the given state
+     */
+    public void reset(State currentState) {
+        if (this.pool == null) {
+            this.pool = new NodePool(this.maxNodes);
+        }
+        this.simulationCount = 0;
+        this.rootState = BitboardState.fromState(currentState); // bitboard copy: cheap clones during search
+        this.pool.newRoot();
+    }
+
+    /**
+     * Moves the root to the given state, keeping the subtree already grown
+     * for it. The state is looked for among the children and the
+     * grandchildren of the current root (our move and the opponent's reply);
+     * if it is not in the tree a new one is started as in
+     * {@link #reset(State)}.
+     *
+     * @return true if a subtree has been reused
+     */
+    public boolean advance(State currentState) {
+        BitboardState target = BitboardState.fromState(currentState);
+        int found = NodePool.NONE;
+        if (this.rootState != null) {
+            found = findDescendant(0, this.rootState, target, 2);
+        }
+        if (found == NodePool.NONE) {
+            reset(target);
+            return false;
+        }
+        this.simulationCount = 0;
+        this.rootState = target;
+        if (found != 0) {
+            if (this.spare == null) {
+                this.spare = new NodePool(this.maxNodes);
+            }
+            this.pool.copySubtree(found, this.spare);
+            NodePool old = this.pool;
+            this.pool = this.spare;
+            this.spare = old;
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of visits of the root, including the ones reused
+     *         from previous searches
+     */
+    public int getRootVisits() {
+        return pool == null ? 0 : pool.visits[0];
+    }
+
+    /**
+     * @return the number of nodes in the tree
+     */
+    public int getTreeSize() {
+        return pool == null ? 0 : pool.size();
+    }
+
+    private int findDescendant(int node, BitboardState state, BitboardState target, int depth) {
+        if (state.getZobristKey() == target.getZobristKey() && state.equals(target)) {
+            return node;
+        }
+        if (depth == 0 || !pool.isExpanded(node)) {
+            return NodePool.NONE;
+        }
+        int first = pool.firstChild[node];
+        for (int child = first; child < first + pool.childCount[node]; child++) {
+            this.gameRules.clearDrawConditions();
+            BitboardState next = (BitboardState) this.gameRules.applyMove(state.clone(), pool.move[child]);
+            int found = findDescendant(child, next, target, depth - 1);
+            if (found != NodePool.NONE) {
+                return found;
+            }
+        }
+        return NodePool.NONE;
+    }
+
+    /**
+     * Runs MCTS iterations on the current tree until the given time
+     *
+     * @param endTime
+     *            deadline, as returned by {@link System#currentTimeMillis()}
+     */
+    public void search(long endTime) {
+        search(endTime, () -> false);
+    }
+
+    /**
+     * Runs MCTS iterations on the current tree until the given time or until
+     * stopped, e.g. when pondering and the opponent's move arrives
+     *
+     * @param endTime
+     *            deadline, as returned by {@link System#currentTimeMillis()}
+     * @param stopped
+     *            checked before every iteration, the search ends when it
+     *            returns true
+     */
+    public void search(long endTime, BooleanSupplier stopped) {
+        while (System.currentTimeMillis() < endTime && !stopped.getAsBoolean()) {
+            this.gameRules.clearDrawConditions();
+            State state = this.rootState.clone();
+
+            // selection and expansion: descend until a node never visited
+            int node = 0;
+            while (!isTerminal(state)) {
+                if (!pool.isExpanded(node) && !expansion(node, state)) {
+                    break; // pool full: simulate from here
+                }
+                if (pool.childCount[node] == 0) {
+                    break;
+                }
+                node = selection(node);
+                state = this.gameRules.applyMove(state, pool.move[node]);
+                if (pool.visits[node] == 0) {
+                    break;
+                }
+            }
+
+            double playoutResult = simulation(state, this.player);
+
+            backpropagation(node, playoutResult);
+            simulationCount++;
+        }
+    }
+
+    /**
+     * @return the number of simulations run since the last {@link #reset(State)}
+     */
+    public int getSimulationCount() {
+        return simulationCount;
+    }
+
+    /**
+     * Adds the statistics of the root children to a table indexed by packed
+     * move (see {@link Move}): element 0 accumulates the visits, element 1
+     * the rewards.
+     */
+    public void addRootStatistics(Map<Integer, double[]> statistics) {
+        if (!pool.isExpanded(0)) {
+            return;
+        }
+        int first = pool.firstChild[0];
+        for (int child = first; child < first + pool.childCount[0]; child++) {
+            double[] stats = statistics.computeIfAbsent(pool.move[child], k -> new double[2]);
+            stats[0] += pool.visits[child];
+            stats[1] += pool.wins[child];
+        }
+    }
+
+    /**
+     * @return a random legal move of the root state, null if there is none
+     */
+    public Action randomRootMove() {
+        int n = MoveGenerator.generate(this.rootState, this.rolloutMoves);
+        return n == 0 ? null : Move.toAction(this.rolloutMoves[random.nextInt(n)]);
+    }
+
+    static boolean isTerminal(State state) {
+        Turn t = state.getTurn();
+        return (t == Turn.WHITEWIN || t == Turn.BLACKWIN || t == Turn.DRAW);
+    }
+
+    /**
+     * Generates the children of a node, ordered by heuristic so that good
+     * moves are visited first
+     *
+     * @return false if the pool is full
+     */
+    private boolean expansion(int node, State state) {
+        int n = orderedMoves(state, this.expansionMoves);
+        return pool.expand(node, this.expansionMoves, n);
+    }
+
+    /**
+     * Generates the legal moves, ordered by heuristic
+     *
+     * @return the number of moves
+     */
+    int orderedMoves(State state, int[] moves) {
+        int n = MoveGenerator.generate(state, moves);
+        for (int i = 0; i < n; i++) {
+            this.expansionScores[i] = fastEvaluateMove(state, moves[i]);
+        }
+        sortByScore(moves, this.expansionScores, n, n);
+        return n;
+    }
+
+    /**
+     * @return the child with the best UCT value, the first one never visited
+     *         if any
+     */
+    private int selection(int node) {
+        int parentVisits = Math.max(1, pool.visits[node]);
+        double logParentVisits = Math.log(parentVisits);
+        int first = pool.firstChild[node];
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < first + pool.childCount[node]; child++) {
+            int visits = pool.visits[child];
+            if (visits == 0) {
+                return child; // prioritize unvisited
+            }
+            double mean = pool.wins[child] / visits;
+            double value = mean + UCT_C * Math.sqrt(logParentVisits / visits);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    double simulation(State simState, Turn myPlayer) {
+        int moves = 0;
+
+        while (moves < MAX_SIM_MOVES) {
+            Turn winner = simState.getTurn();
+
+            if (winner == Turn.WHITEWIN) return (myPlayer == Turn.WHITE) ? 1.0 : 0.0;
+            if (winner == Turn.BLACKWIN) return (myPlayer == Turn.BLACK) ? 1.0 : 0.0;
+            if (winner == Turn.DRAW) return 0.5;
+
+            int n = MoveGenerator.generate(simState, this.rolloutMoves);
+            if (n == 0) return 0.5;
+
+            int chosen;
+            if (random.nextDouble() < ROLLOUT_EPSILON) {
+                // explore
+                chosen = this.rolloutMoves[random.nextInt(n)];
+            } else {
+                // exploit: pick best according to quick heuristic, but to avoid bias,
+                // consider top-K and randomly choose among them
+                int K = Math.max(1, Math.min(5, n));
+                for (int i = 0; i < n; i++) {
+                    this.rolloutScores[i] = fastEvaluateMove(simState, this.rolloutMoves[i]);
+                }
+                sortByScore(this.rolloutMoves, this.rolloutScores, n, K);
+                chosen = this.rolloutMoves[random.nextInt(K)];
+            }
+
+            simState = this.gameRules.applyMove(simState, chosen);
+            moves++;
+        }
+
+        Turn after = simState.getTurn();
+        if (after == Turn.WHITEWIN) return (myPlayer == Turn.WHITE) ? 1.0 : 0.0;
+        if (after == Turn.BLACKWIN) return (myPlayer == Turn.BLACK) ? 1.0 : 0.0;
+        return 0.5;
+    }
+
+    private void backpropagation(int node, double result) {
+        int temp = node;
+        while (temp != NodePool.NONE) {
+            pool.visits[temp]++;
+
+            // the root has no move: use result as-is
+            if (pool.parent[temp] == NodePool.NONE || Move.getTurn(pool.move[temp]) == this.player) {
+                // mover is root player: reward as-is
+                pool.wins[temp] += result;
+            } else {
+                // mover is opponent: invert reward
+                pool.wins[temp] += (1.0 - result);
+            }
+
+            temp = pool.parent[temp];
+        }
+    }
+
+    /**
+     * Selection sort of the first k moves by descending score
+     */
+    private static void sortByScore(int[] moves, int[] scores, int n, int k) {
+        for (int i = 0; i < k; i++) {
+            int bestIndex = i;
+            for (int j = i + 1; j < n; j++) {
+                if (scores[j] > scores[bestIndex]) {
+                    bestIndex = j;
+                }
+            }
+            int tmpM = moves[i];
+            moves[i] = moves[bestIndex];
+            moves[bestIndex] = tmpM;
+
+            int tmpS = scores[i];
+            scores[i] = scores[bestIndex];
+            scores[bestIndex] = tmpS;
+        }
+    }
+
+    private int fastEvaluateMove(State state, int move) {
+        int score = 0;
+        Turn player = Move.getTurn(move);
+        Pawn[][] board = state.getBoard();
+
+        // simulate move locally for heuristic (without modifying original board)
+        int fromR = Move.getRowFrom(move);
+        int fromC = Move.getColumnFrom(move);
+        int toR = Move.getRowTo(move);
+        int toC = Move.getColumnTo(move);
+        Pawn moving = board[fromR][fromC];
+
+        // quick capture estimation
+        int captures = fastSimulatedCaptureCheck(board, toR, toC, player);
+        if (captures > 0) {
+            if (captures >= 10) score += 20000;
+            score += 2000 * captures;
+        }
+
+        if (player == Turn.WHITE) {
+            if (moving == Pawn.KING) {
+                int distBefore = kingDistanceToEscape(fromR, fromC);
+                int distAfter = kingDistanceToEscape(toR, toC);
+                if (distAfter < distBefore) score += 800;
+                // prefer increasing nearest black pawn distance
+                int beforeNearest = nearestEnemyDistance(board, fromR, fromC, Pawn.BLACK);
+                int afterNearest = nearestEnemyDistance(board, toR, toC, Pawn.BLACK);
+                if (afterNearest > beforeNearest) score += 200;
+            } else {
+                // white pawn heuristic: keep pawns nearer to king
+                int[] king = findKing(board);
+                if (king[0] != -1) {
+                    int before = Math.abs(fromR - king[0]) + Math.abs(fromC - king[1]);
+                    int after = Math.abs(toR - king[0]) + Math.abs(toC - king[1]);
+                    if (after < before) score += 80; // support king
+                    else score -= 20;
+                }
+            }
+        } else {
+            // BLACK heuristics
+            int[] king = findKing(board);
+            if (king[0] != -1) {
+                int before = Math.abs(fromR - king[0]) + Math.abs(fromC - king[1]);
+                int after = Math.abs(toR - king[0]) + Math.abs(toC - king[1]);
+                if (after < before) score += 300;
+                if (toR == king[0] || toC == king[1]) score += 60; // on same row/col as king
+            }
+            // penalize leaving large gaps
+            score += random.nextInt(8);
+        }
+
+        // small random tie-breaker
+        score += random.nextInt(20);
+
+        return score;
+    }
+
+    private int nearestEnemyDistance(Pawn[][] board, int r, int c, Pawn enemyPawn) {
+        int best = 100;
+        for (int rr = 0; rr < 9; rr++) {
+            for (int cc = 0; cc < 9; cc++) {
+                if (board[rr][cc] == enemyPawn) {
+                    int d = Math.abs(r - rr) + Math.abs(c - cc);
+                    if (d < best) best = d;
+                }
+            }
+        }
+        return best;
+    }
+
+    private int fastSimulatedCaptureCheck(Pawn[][] board, int r, int c, Turn turn) {
+        int captures = 0;
+
+        Pawn enemy = (turn == Turn.WHITE) ? Pawn.BLACK : Pawn.WHITE;
+        Pawn ally = (turn == Turn.WHITE) ? Pawn.WHITE : Pawn.BLACK;
+        Pawn king = Pawn.KING;
+
+        // UP
+        if (r - 2 >= 0) {
+            Pawn mid = board[r - 1][c];
+            Pawn beyond = board[r - 2][c];
+            if ((mid == enemy || mid == king) && (beyond == ally || beyond == king || isHostileSquare(r - 2, c))) {
+                if (mid == king) captures += 10; else captures++;
+            }
+        }
+        // DOWN
+        if (r + 2 < 9) {
+            Pawn mid = board[r + 1][c];
+            Pawn beyond = board[r + 2][c];
+            if ((mid == enemy || mid == king) && (beyond == ally || beyond == king || isHostileSquare(r + 2, c))) {
+                if (mid == king) captures += 10; else captures++;
+            }
+        }
+        // LEFT
+        if (c - 2 >= 0) {
+            Pawn mid = board[r][c - 1];
+            Pawn beyond = board[r][c - 2];
+            if ((mid == enemy || mid == king) && (beyond == ally || beyond == king || isHostileSquare(r, c - 2))) {
+                if (mid == king) captures += 10; else captures++;
+            }
+        }
+        // RIGHT
+        if (c + 2 < 9) {
+            Pawn mid = board[r][c + 1];
+            Pawn beyond = board[r][c + 2];
+            if ((mid == enemy || mid == king) && (beyond == ally || beyond == king || isHostileSquare(r, c + 2))) {
+                if (mid == king) captures += 10; else captures++;
+            }
+        }
+
+        return captures;
+    }
+
+    private int[] findKing(Pawn[][] board) {
+        for (int r = 0; r < 9; r++) {
+            for (int c = 0; c < 9; c++) {
+                if (board[r][c] == Pawn.KING) {
+                    return new int[]{r, c};
+                }
+            }
+        }
+        return new int[]{-1, -1};
+    }
+
+    private int kingDistanceToEscape(int r, int c) {
+        int distN = r;
+        int distS = 8 - r;
+        int distW = c;
+        int distE = 8 - c;
+        return Math.min(Math.min(distN, distS), Math.min(distW, distE));
+    }
+
+    private boolean isHostileSquare(int r, int c) {
+        if (r == 4 && c == 4) return true;
+        return MoveGenerator.isCitadel(r, c);
+    }
+}
@@ -0,0 +1,197 @@
+package it.unibo.ai.didattica.competition.tablut.client;
+
+import java.util.Arrays;
+
+/**
+ * Storage of a Monte Carlo search graph as parallel arrays of primitives, like
+ * {@link NodePool}, but with the positions reached by different orders of
+ * moves stored once: a node is a position, found by its Zobrist key in an
+ * open addressing table, and the moves (packed as in
+ * {@link it.unibo.ai.didattica.competition.tablut.domain.Move}) are edges
+ * from a node to another, so a node can have many parents.
+ *
+ * The edges of a node are allocated together when the node is expanded; the
+ * node an edge leads to is looked up, or added, the first time the edge is
+ * followed.
+ */
+class NodeGraph {
+
+    /**
+     * Value used for "no node" and "no edge"
+     */
+    static final int NONE = -1;
+
+    /**
+     * Memory used by a single edge
+     */
+    static final int BYTES_PER_EDGE = 3 * Integer.BYTES;
+    /**
+     * Memory used by a single node, its 2 to 4 slots of the hash table
+     * included
+     */
+    static final int BYTES_PER_NODE = Long.BYTES + Double.BYTES + 6 * Integer.BYTES;
+
+    // edge count of a node whose moves have not been generated yet
+    private static final int NOT_EXPANDED = -1;
+
+    // nodes
+    final long[] key;
+    final int[] visits;
+    final double[] wins; // cumulative reward from the point of view of the player that moved into the node
+    final int[] firstEdge;
+    final int[] edgeCount;
+
+    // edges
+    final int[] move;
+    final int[] target; // NONE until the edge is followed
+    final int[] edgeVisits;
+
+    // node index + 1 for every used slot, 0 for the free ones
+    private final int[] slots;
+    private int size;
+    private int edges;
+
+    // used by copyReachable: index in the copy of every node, and origin of
+    // every node of the copy
+    private int[] copied;
+    private int[] origin;
+
+    NodeGraph(int nodeCapacity, int edgeCapacity) {
+        this.key = new long[nodeCapacity];
+        this.visits = new int[nodeCapacity];
+        this.wins = new double[nodeCapacity];
+        this.firstEdge = new int[nodeCapacity];
+        this.edgeCount = new int[nodeCapacity];
+        this.move = new int[edgeCapacity];
+        this.target = new int[edgeCapacity];
+        this.edgeVisits = new int[edgeCapacity];
+        // at most half of the slots are used
+        this.slots = new int[4 * Integer.highestOneBit(Math.max(1, nodeCapacity))];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Removes all the nodes and the edges
+     */
+    void clear() {
+        size = 0;
+        edges = 0;
+        Arrays.fill(slots, 0);
+    }
+
+    /**
+     * @return the node of the position, NONE if it is not in the graph
+     */
+    int find(long positionKey) {
+        int mask = slots.length - 1;
+        for (int i = slot(positionKey, mask); slots[i] != 0; i = (i + 1) & mask) {
+            if (key[slots[i] - 1] == positionKey) {
+                return slots[i] - 1;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Adds the node of a position that is not in the graph
+     *
+     * @return the new node, NONE if the graph has no room left
+     */
+    int add(long positionKey) {
+        if (size == key.length) {
+            return NONE;
+        }
+        int node = size++;
+        key[node] = positionKey;
+        visits[node] = 0;
+        wins[node] = 0;
+        firstEdge[node] = NONE;
+        edgeCount[node] = NOT_EXPANDED;
+        int mask = slots.length - 1;
+        int i = slot(positionKey, mask);
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = node + 1;
+        return node;
+    }
+
+    boolean isExpanded(int node) {
+        return edgeCount[node] != NOT_EXPANDED;
+    }
+
+    /**
+     * Allocates the edges of a node, one for every move
+     *
+     * @return false if the graph has no room left, in which case the node is
+     *         left unexpanded
+     */
+    boolean expand(int node, int[] moves, int count) {
+        if (edges + count > move.length) {
+            return false;
+        }
+        firstEdge[node] = edges;
+        edgeCount[node] = count;
+        for (int i = 0; i < count; i++) {
+            move[edges] = moves[i];
+            target[edges] = NONE;
+            edgeVisits[edges] = 0;
+            edges++;
+        }
+        return true;
+    }
+
+    /**
+     * Copies the nodes reachable from the given node into another graph,
+     * where it becomes node 0. The rest of the graph, the positions that can
+     * no longer be reached, is left behind.
+     */
+    void copyReachable(int node, NodeGraph graph) {
+        graph.clear();
+        if (copied == null) {
+            copied = new int[key.length];
+            origin = new int[key.length];
+        }
+        Arrays.fill(copied, 0, size, NONE);
+        copyNode(node, graph);
+        // breadth first: the nodes of the copy are visited in order
+        for (int next = 0; next < graph.size; next++) {
+            int source = origin[next];
+            int count = edgeCount[source];
+            if (count <= 0) {
+                continue;
+            }
+            graph.firstEdge[next] = graph.edges;
+            for (int e = firstEdge[source]; e < firstEdge[source] + count; e++) {
+                int i = graph.edges++;
+                graph.move[i] = move[e];
+                graph.edgeVisits[i] = edgeVisits[e];
+                int child = target[e];
+                if (child == NONE) {
+                    graph.target[i] = NONE;
+                } else {
+                    if (copied[child] == NONE) {
+                        copyNode(child, graph);
+                    }
+                    graph.target[i] = copied[child];
+                }
+            }
+        }
+    }
+
+    private void copyNode(int node, NodeGraph graph) {
+        int i = graph.add(key[node]);
+        graph.visits[i] = visits[node];
+        graph.wins[i] = wins[node];
+        graph.edgeCount[i] = edgeCount[node];
+        copied[node] = i;
+        origin[i] = node;
+    }
+
+    private static int slot(long positionKey, int mask) {
+        return (int) (positionKey ^ (positionKey >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,129 @@
+package it.unibo.ai.didattica.competition.tablut.client;
+
+import it.unibo.ai.didattica.competition.tablut.domain.Move;
+
+/**
+ * Storage of the nodes of a Monte Carlo tree as parallel arrays of
+ * primitives, so that a tree of millions of nodes is a handful of objects and
+ * does not load the garbage collector. A node is an index in the arrays; the
+ * children of a node are allocated together, at consecutive indexes.
+ *
+ * Nodes do not store states: the search recomputes them by applying the
+ * packed moves (see {@link Move}) from the root state.
+ */
+class NodePool {
+
+    /**
+     * Value used for "no node"
+     */
+    static final int NONE = -1;
+
+    /**
+     * Memory used by a single node
+     */
+    static final int BYTES_PER_NODE = 5 * Integer.BYTES + Double.BYTES;
+
+    // child count of a node whose moves have not been generated yet
+    private static final int NOT_EXPANDED = -1;
+
+    final int[] parent;
+    final int[] firstChild;
+    final int[] childCount;
+    final int[] visits;
+    final double[] wins; // cumulative reward from the point of view of the player that moved
+    final int[] move;
+
+    private int size;
+
+    NodePool(int capacity) {
+        this.parent = new int[capacity];
+        this.firstChild = new int[capacity];
+        this.childCount = new int[capacity];
+        this.visits = new int[capacity];
+        this.wins = new double[capacity];
+        this.move = new int[capacity];
+    }
+
+    int capacity() {
+        return move.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Empties the pool and allocates the root, at index 0
+     *
+     * @return the index of the root
+     */
+    int newRoot() {
+        size = 0;
+        return allocate(NONE, Move.NONE);
+    }
+
+    boolean isExpanded(int node) {
+        return childCount[node] != NOT_EXPANDED;
+    }
+
+    /**
+     * Allocates the children of a node, one for every move
+     *
+     * @return false if the pool has no room left, in which case the node is
+     *         left unexpanded
+     */
+    boolean expand(int node, int[] moves, int count) {
+        if (size + count > capacity()) {
+            return false;
+        }
+        firstChild[node] = size;
+        childCount[node] = count;
+        for (int i = 0; i < count; i++) {
+            allocate(node, moves[i]);
+        }
+        return true;
+    }
+
+    /**
+     * Copies the subtree under the given node into another pool, where it
+     * becomes the root. Nodes are copied breadth first, so the children of
+     * every node stay consecutive.
+     */
+    void copySubtree(int node, NodePool target) {
+        target.size = 0;
+        copyNode(node, target, NONE);
+        target.move[0] = Move.NONE;
+        for (int next = 0; next < target.size; next++) {
+            int source = target.firstChild[next]; // still the index in this pool
+            int count = target.childCount[next];
+            if (count <= 0) {
+                continue;
+            }
+            target.firstChild[next] = target.size;
+            for (int i = 0; i < count; i++) {
+                copyNode(source + i, target, next);
+            }
+        }
+    }
+
+    private void copyNode(int node, NodePool target, int newParent) {
+        int i = target.size++;
+        target.parent[i] = newParent;
+        target.firstChild[i] = firstChild[node];
+        target.childCount[i] = childCount[node];
+        target.visits[i] = visits[node];
+        target.wins[i] = wins[node];
+        target.move[i] = move[node];
+    }
+
+    private int allocate(int parentNode, int packedMove) {
+        int i = size++;
+        parent[i] = parentNode;
+        firstChild[i] = NONE;
+        childCount[i] = NOT_EXPANDED;
+        visits[i] = 0;
+        wins[i] = 0;
+        move[i] = packedMove;
+        return i;
+    }
+}
@@ -0,0 +1,40 @@
+package it.unibo.ai.didattica.competition.tablut.client;
+
+import it.unibo.ai.didattica.competition.tablut.domain.Action;
+import it.unibo.ai.didattica.competition.tablut.domain.State;
+
+/**
+ * The decision making of a player, independent of how the states arrive: the
+ * same player can play over TCP, in the in-process arena or in a benchmark.
+ */
+public interface Player {
+
+    /**
+     * Chooses the move of the player to move
+     *
+     * @param state
+     *            the current state; the player must not modify it
+     * @param deadline
+     *            the time, as {@link System#currentTimeMillis()}, by which the
+     *            move must be returned
+     * @return a legal move for the player to move
+     */
+    Action chooseMove(State state, long deadline);
+
+    /**
+     * Called with the states where the opponent has to move, for the players
+     * that think on the opponent's time; it must return at once
+     */
+    default void opponentToMove(State state) {
+    }
+
+    /**
+     * Called once at the end of the game, also when it ends with an error, to
+     * release threads and memory
+     *
+     * @param state
+     *            the last state, null if none has been received
+     */
+    default void gameEnded(State state) {
+    }
+}
@@ -0,0 +1,84 @@
+package it.unibo.ai.didattica.competition.tablut.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import it.unibo.ai.didattica.competition.tablut.domain.Action;
+import it.unibo.ai.didattica.competition.tablut.domain.Game;
+import it.unibo.ai.didattica.competition.tablut.domain.GameAshtonTablut;
+import it.unibo.ai.didattica.competition.tablut.domain.Move;
+import it.unibo.ai.didattica.competition.tablut.domain.MoveGenerator;
+import it.unibo.ai.didattica.competition.tablut.domain.State;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Pawn;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+
+/**
+ * Plays a legal move chosen at random. With the Ashton rules the legal moves
+ * are generated by {@link MoveGenerator} and the choice is uniform; with the
+ * other rules random moves of an own pawn to an empty box are tried until
+ * {@link Game#checkMove(State, Action)} accepts one.
+ */
+public class RandomPlayer implements Player {
+
+    private final Random random;
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+    // null for the Ashton rules
+    private final Game rules;
+
+    public RandomPlayer(long seed) {
+        this(seed, null);
+    }
+
+    /**
+     * @param rules
+     *            the rules that validate the moves, null or
+     *            {@link GameAshtonTablut} to use the move generator
+     */
+    public RandomPlayer(long seed, Game rules) {
+        this.random = new Random(seed);
+        this.rules = rules instanceof GameAshtonTablut ? null : rules;
+    }
+
+    @Override
+    public Action chooseMove(State state, long deadline) {
+        if (this.rules != null) {
+            return this.tryRandomMoves(state);
+        }
+        int n = MoveGenerator.generate(state, moves);
+        if (n == 0) {
+            return null;
+        }
+        return Move.toAction(moves[random.nextInt(n)]);
+    }
+
+    private Action tryRandomMoves(State state) {
+        Turn turn = state.getTurn();
+        List<String> pawns = new ArrayList<>();
+        List<String> empty = new ArrayList<>();
+        int size = state.getBoardSize();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                Pawn pawn = state.getPawn(i, j);
+                if (turn == Turn.WHITE ? pawn == Pawn.WHITE || pawn == Pawn.KING : pawn == Pawn.BLACK) {
+                    pawns.add(state.getBox(i, j));
+                } else if (pawn == Pawn.EMPTY) {
+                    empty.add(state.getBox(i, j));
+                }
+            }
+        }
+        if (pawns.isEmpty() || empty.isEmpty()) {
+            return null;
+        }
+        while (true) {
+            try {
+                Action a = new Action(pawns.get(random.nextInt(pawns.size())), empty.get(random.nextInt(empty.size())),
+                        turn);
+                this.rules.checkMove(state.clone(), a);
+                return a;
+            } catch (Exception e) {
+                // mossa non valida, ne provo un'altra
+            }
+        }
+    }
+}
@@ -11,13 +11,18 @@ import com.google.gson.Gson;
 
 import it.unibo.ai.didattica.competition.tablut.domain.Action;
 import it.unibo.ai.didattica.competition.tablut.domain.State;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
 import it.unibo.ai.didattica.competition.tablut.domain.StateTablut;
+import it.unibo.ai.didattica.competition.tablut.util.BinaryProtocol;
 import it.unibo.ai.didattica.competition.tablut.util.Configuration;
 import it.unibo.ai.didattica.competition.tablut.util.StreamUtils;
 
 /**
  * Classe astratta di un client per il gioco Tablut
  * 
+ * The client takes care of the connection with the server: the choice of the
+ * moves can be left to a {@link Player}, see {@link #play(Player)}.
+ * 
  * @author Andrea Piretti
  *
  */
@@ -32,6 +37,39 @@ public abstract class TablutClient implements Runnable {
 	private State currentState;
 	private int timeout;
 	private String serverIp;
+	/**
+	 * Whether the player is connected to a tournament server
+	 */
+	private boolean tournament;
+	/**
+	 * Whether the player asks for the {@link BinaryProtocol} instead of JSON
+	 */
+	private boolean binaryProtocol;
+	/**
+	 * Whether the server sends the changes of the state instead of the whole
+	 * state, see {@link BinaryProtocol#HELLO_DELTA}
+	 */
+	private boolean deltaProtocol;
+	/**
+	 * Last state received, the base of the next delta; the players get a copy
+	 */
+	private State lastReceived;
+	/**
+	 * Time spent encoding and decoding the messages and writing them to the
+	 * socket, in nanoseconds; the wait for the messages is not included
+	 */
+	private long transportTime;
+	/**
+	 * Time spent decoding the last state and encoding and writing the last
+	 * action, in nanoseconds
+	 */
+	private long lastReadTime;
+	private long lastWriteTime;
+	/**
+	 * Budget of the moves, from the timeout and the time lost outside the
+	 * search
+	 */
+	private TimeManager timeManager;
 
 	public State.Turn getPlayer() {
 		return player;
@@ -65,9 +103,32 @@ public abstract class TablutClient implements Runnable {
 	 */
 	public TablutClient(String player, String name, int timeout, String ipAddress)
 			throws UnknownHostException, IOException {
+		this(player, name, timeout, ipAddress, false);
+	}
+
+	/**
+	 * Creates a new player initializing the sockets and the logger
+	 * 
+	 * @param player
+	 *            The role of the player (black or white)
+	 * @param name
+	 *            The name of the player
+	 * @param timeout
+	 *            The timeout that will be taken into account (in seconds)
+	 * @param ipAddress
+	 *            The ipAddress of the server
+	 * @param tournament
+	 *            Whether the server is a tournament server, where all the
+	 *            players connect on the same port and declare their role
+	 * @throws UnknownHostException
+	 * @throws IOException
+	 */
+	public TablutClient(String player, String name, int timeout, String ipAddress, boolean tournament)
+			throws UnknownHostException, IOException {
 		int port = 0;
 		serverIp = ipAddress;
 		this.timeout = timeout;
+		this.tournament = tournament;
 		this.gson = new Gson();
 		if (player.toLowerCase().equals("white")) {
 			this.player = State.Turn.WHITE;
@@ -78,7 +139,12 @@ public abstract class TablutClient implements Runnable {
 		} else {
 			throw new InvalidParameterException("Player role must be BLACK or WHITE");
 		}
+		if (tournament) {
+			port = Configuration.tournamentPort;
+		}
+		long connectStart = System.nanoTime();
 		playerSocket = new Socket(serverIp, port);
+		this.timeManager = new TimeManager(timeout, System.nanoTime() - connectStart);
 		out = new DataOutputStream(playerSocket.getOutputStream());
 		in = new DataInputStream(playerSocket.getInputStream());
 		this.name = name;
@@ -134,6 +200,47 @@ public abstract class TablutClient implements Runnable {
 		this(player, name, 60, ipAddress);
 	}
 
+	public boolean isBinaryProtocol() {
+		return binaryProtocol;
+	}
+
+	/**
+	 * Chooses the binary protocol, more compact than JSON; it must be called
+	 * before {@link #declareName()}
+	 */
+	public void setBinaryProtocol(boolean binaryProtocol) {
+		this.binaryProtocol = binaryProtocol;
+	}
+
+	public boolean isDeltaProtocol() {
+		return deltaProtocol;
+	}
+
+	/**
+	 * Chooses the binary protocol with delta updates of the state; it must be
+	 * called before {@link #declareName()}
+	 */
+	public void setDeltaProtocol(boolean deltaProtocol) {
+		this.deltaProtocol = deltaProtocol;
+		this.binaryProtocol |= deltaProtocol;
+	}
+
+	public int getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * @return the time spent by this client on the messages, in nanoseconds,
+	 *         excluding the wait for the server
+	 */
+	public long getTransportTime() {
+		return transportTime;
+	}
+
+	public TimeManager getTimeManager() {
+		return timeManager;
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -146,13 +253,29 @@ public abstract class TablutClient implements Runnable {
 	 * Write an action to the server
 	 */
 	public void write(Action action) throws IOException, ClassNotFoundException {
-		StreamUtils.writeString(out, this.gson.toJson(action));
+		long start = System.nanoTime();
+		if (this.binaryProtocol) {
+			StreamUtils.writeBytes(out, BinaryProtocol.encodeAction(action));
+		} else {
+			StreamUtils.writeString(out, this.gson.toJson(action));
+		}
+		this.lastWriteTime = System.nanoTime() - start;
+		this.transportTime += this.lastWriteTime;
 	}
 
 	/**
-	 * Write the name to the server
+	 * Write the name to the server; a tournament server receives the role
+	 * first. The request of the binary protocol comes before both.
 	 */
 	public void declareName() throws IOException, ClassNotFoundException {
+		if (this.deltaProtocol) {
+			StreamUtils.writeBytes(out, BinaryProtocol.deltaHello());
+		} else if (this.binaryProtocol) {
+			StreamUtils.writeBytes(out, BinaryProtocol.hello());
+		}
+		if (this.tournament) {
+			StreamUtils.writeString(out, this.gson.toJson(this.player));
+		}
 		StreamUtils.writeString(out, this.gson.toJson(this.name));
 	}
 
@@ -160,6 +283,82 @@ public abstract class TablutClient implements Runnable {
 	 * Read the state from the server
 	 */
 	public void read() throws ClassNotFoundException, IOException {
-		this.currentState = this.gson.fromJson(StreamUtils.readString(in), StateTablut.class);
+		if (this.binaryProtocol) {
+			byte[] message = StreamUtils.readBytes(in);
+			long start = System.nanoTime();
+			if (this.deltaProtocol) {
+				this.lastReceived = BinaryProtocol.decodeUpdate(this.lastReceived, message);
+				this.currentState = this.lastReceived.clone();
+			} else {
+				this.currentState = BinaryProtocol.decodeState(message);
+			}
+			this.lastReadTime = System.nanoTime() - start;
+			this.transportTime += this.lastReadTime;
+			return;
+		}
+		String message = StreamUtils.readString(in);
+		long start = System.nanoTime();
+		this.currentState = this.gson.fromJson(message, StateTablut.class);
+		this.lastReadTime = System.nanoTime() - start;
+		this.transportTime += this.lastReadTime;
+	}
+
+	/**
+	 * Plays a whole game: declares the name, then sends to the server the
+	 * moves chosen by the player for the states where it has to move. The
+	 * player does not see the socket, so the same player can be used
+	 * elsewhere, for example in the
+	 * {@link it.unibo.ai.didattica.competition.tablut.tester.Arena}.
+	 */
+	public void play(Player player) throws IOException, ClassNotFoundException {
+		this.declareName();
+		System.out.println("You are player " + this.player.toString() + "!");
+		int moves = 0;
+		try {
+			while (true) {
+				this.read();
+				long received = System.currentTimeMillis();
+				State state = this.currentState;
+				Turn turn = state.getTurn();
+				if (turn == this.player) {
+					long deadline = this.moveDeadline(received);
+					Action action = player.chooseMove(state, deadline);
+					long chosen = System.currentTimeMillis();
+					if (action == null) {
+						System.out.println("No move found!");
+						return;
+					}
+					System.out.println("Move chosen: " + action + " in " + (chosen - received) + "ms");
+					this.write(action);
+					this.timeManager.moveSent(this.lastReadTime + this.lastWriteTime, chosen - deadline);
+					moves++;
+				} else if (turn == Turn.WHITE || turn == Turn.BLACK) {
+					player.opponentToMove(state);
+				} else {
+					if (turn == Turn.DRAW) {
+						System.out.println("DRAW!");
+					} else if ((turn == Turn.WHITEWIN) == (this.player == Turn.WHITE)) {
+						System.out.println("YOU WIN!");
+					} else {
+						System.out.println("YOU LOSE!");
+					}
+					System.out.println("Transport: " + this.transportTime / 1000000 + "ms for " + moves
+							+ " moves and the states");
+					return;
+				}
+			}
+		} finally {
+			player.gameEnded(this.currentState);
+		}
+	}
+
+	/**
+	 * @param received
+	 *            when the state arrived, as {@link System#currentTimeMillis()}
+	 * @return the time by which the move must be sent, see
+	 *         {@link TimeManager}
+	 */
+	protected long moveDeadline(long received) {
+		return this.timeManager.deadline(received);
 	}
 }
@@ -0,0 +1,155 @@
+package it.unibo.ai.didattica.competition.tablut.client;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Time budget of the moves, derived from the timeout of the server instead of
+ * a fixed limit. The server counts the timeout from when it sends the state,
+ * so the budget is the timeout minus what is lost outside the search:
+ * <ul>
+ * <li>the transport: the delay of the network, estimated from the time taken
+ * to connect, plus the time spent by the client decoding the state, encoding
+ * the move and writing it, plus how late the player returned its move. The
+ * worst of the last {@value #OVERHEAD_HISTORY} moves is used;</li>
+ * <li>the garbage collection: twice the longest pause observed since the
+ * start of the game, since a pause can hit the search right before the
+ * move is sent;</li>
+ * <li>a fixed safety margin, {@value #SAFETY_MARGIN}ms plus
+ * {@value #SAFETY_PERMILLE} per mille of the timeout, for the scheduling of
+ * the threads of client and server.</li>
+ * </ul>
+ * Whatever the measures, at least half of the timeout is left to the search.
+ */
+public class TimeManager {
+
+    /**
+     * Fixed part of the safety margin, in milliseconds
+     */
+    public static final long SAFETY_MARGIN = 250;
+    /**
+     * Part of the safety margin proportional to the timeout, per mille
+     */
+    public static final long SAFETY_PERMILLE = 10;
+    /**
+     * Number of moves whose transport time is remembered
+     */
+    public static final int OVERHEAD_HISTORY = 8;
+
+    private final long timeout;
+    private final long networkDelay;
+
+    // transport time of the last moves, in nanoseconds
+    private final long[] overheads = new long[OVERHEAD_HISTORY];
+    private int moves;
+
+    // collectors that stop the application, with their count and total time
+    // at the last check
+    private final List<GarbageCollectorMXBean> collectors = new ArrayList<>();
+    private long[] lastCount;
+    private long[] lastTime;
+    private long longestPause;
+
+    // print the budget of every move on stdout
+    private boolean verbose = true;
+
+    /**
+     * @param timeout
+     *            the timeout of the server, in seconds
+     * @param connectTime
+     *            the time taken to connect to the server, in nanoseconds: a
+     *            round trip of the network
+     */
+    public TimeManager(int timeout, long connectTime) {
+        this.timeout = timeout * 1000L;
+        this.networkDelay = connectTime;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            // the concurrent cycles of G1, ZGC and Shenandoah do not stop
+            // the search
+            String name = collector.getName();
+            if (!name.contains("Concurrent") && !name.contains("Cycles")) {
+                this.collectors.add(collector);
+            }
+        }
+        this.lastCount = new long[this.collectors.size()];
+        this.lastTime = new long[this.collectors.size()];
+        // the collections before the game are only the baseline
+        Arrays.fill(this.lastCount, -1);
+        this.checkCollections();
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * @param received
+     *            when the state arrived, as {@link System#currentTimeMillis()}
+     * @return the time by which the move must be chosen
+     */
+    public long deadline(long received) {
+        this.checkCollections();
+        long overhead = this.overhead();
+        long gcMargin = 2 * this.longestPause;
+        long safety = SAFETY_MARGIN + this.timeout * SAFETY_PERMILLE / 1000;
+        long budget = Math.max(this.timeout / 2, this.timeout - overhead - gcMargin - safety);
+        if (this.verbose) {
+            System.out.println("Time budget: " + budget + "ms of " + this.timeout + "ms (transport " + overhead
+                    + "ms, GC " + gcMargin + "ms, safety " + safety + "ms)");
+        }
+        return received + budget;
+    }
+
+    /**
+     * Records the time lost on a move outside the search
+     *
+     * @param transport
+     *            time spent decoding the state, encoding and writing the move,
+     *            in nanoseconds
+     * @param late
+     *            how late the move was chosen with respect to its deadline, in
+     *            milliseconds, 0 if on time
+     */
+    public void moveSent(long transport, long late) {
+        this.overheads[this.moves++ % OVERHEAD_HISTORY] = transport + Math.max(0, late) * 1000000L;
+    }
+
+    /**
+     * @return the transport time used for the next budget, in milliseconds
+     */
+    public long overhead() {
+        long worst = 0;
+        for (int i = 0; i < Math.min(this.moves, OVERHEAD_HISTORY); i++) {
+            worst = Math.max(worst, this.overheads[i]);
+        }
+        // rounded up: a fraction of millisecond is still late
+        return (this.networkDelay + worst + 999999) / 1000000;
+    }
+
+    /**
+     * @return the longest garbage collection pause observed, in milliseconds
+     */
+    public long getLongestPause() {
+        return this.longestPause;
+    }
+
+    // the beans only give totals: the pause of the collections since the
+    // last check is estimated as their mean; the first check records the
+    // totals only
+    private void checkCollections() {
+        for (int i = 0; i < this.collectors.size(); i++) {
+            GarbageCollectorMXBean collector = this.collectors.get(i);
+            long count = collector.getCollectionCount();
+            long time = collector.getCollectionTime();
+            if (count > this.lastCount[i] && this.lastCount[i] >= 0) {
+                long pause = (time - this.lastTime[i] + count - this.lastCount[i] - 1) / (count - this.lastCount[i]);
+                this.longestPause = Math.max(this.longestPause, pause);
+            }
+            this.lastCount[i] = count;
+            this.lastTime[i] = time;
+        }
+    }
+}
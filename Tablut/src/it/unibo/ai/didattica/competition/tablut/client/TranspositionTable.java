@@ -0,0 +1,181 @@
+package it.unibo.ai.didattica.competition.tablut.client;
+
+import it.unibo.ai.didattica.competition.tablut.domain.Move;
+
+import java.util.Arrays;
+
+/**
+ * Transposition table of a search: the results of the positions already
+ * searched, indexed by their Zobrist key, so that a position reached again
+ * through a different order of moves is not searched again.
+ *
+ * The table is a single array of longs of fixed size, chosen in MB. Entries
+ * are grouped in buckets of {@link #BUCKET_SIZE}, 64 bytes, one cache line;
+ * a position can be stored in any entry of the bucket of its key. When the
+ * bucket is full the entry replaced is the shallowest one, entries of
+ * previous searches (see {@link #newSearch()}) counting as shallower.
+ *
+ * An entry is two longs, the data and the key XOR the data, written without
+ * locks: several search threads can share the table, and an entry torn by
+ * two threads writing at the same time does not pass the check of the key,
+ * so it is simply a miss.
+ *
+ * The data of an entry is packed in a long, read with the static methods:
+ * {@link #move(long)}, {@link #score(long)}, {@link #depth(long)} and
+ * {@link #bound(long)}.
+ */
+public class TranspositionTable {
+
+    /**
+     * The score is exact
+     */
+    public static final int EXACT = 3;
+    /**
+     * The score is a lower bound: the search failed high
+     */
+    public static final int LOWER = 2;
+    /**
+     * The score is an upper bound: the search failed low
+     */
+    public static final int UPPER = 1;
+
+    /**
+     * Entries in a bucket
+     */
+    public static final int BUCKET_SIZE = 4;
+    /**
+     * Memory of an entry
+     */
+    public static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+
+    // layout of the data: move + 1 (16 bits), score (32), depth (8), bound
+    // (2), age (6)
+    private static final int SCORE_SHIFT = 16;
+    private static final int DEPTH_SHIFT = 48;
+    private static final int BOUND_SHIFT = 56;
+    private static final int AGE_SHIFT = 58;
+    private static final int AGE_MASK = 0x3f;
+
+    // key, data pairs stored as data ^ key, data
+    private final long[] table;
+    private final int bucketMask;
+    private int age;
+
+    /**
+     * @param megabytes
+     *            memory of the table; the number of buckets is rounded down to
+     *            a power of two
+     */
+    public TranspositionTable(int megabytes) {
+        long buckets = Math.max(1, megabytes * 1024L * 1024L / (BUCKET_SIZE * BYTES_PER_ENTRY));
+        // the array of longs must be indexable by an int
+        buckets = Math.min(Long.highestOneBit(buckets), 1 << 27);
+        this.table = new long[(int) buckets * BUCKET_SIZE * 2];
+        this.bucketMask = (int) buckets - 1;
+    }
+
+    /**
+     * Starts a new search: the entries stored until now are replaced first
+     */
+    public void newSearch() {
+        this.age = (this.age + 1) & AGE_MASK;
+    }
+
+    /**
+     * Empties the table
+     */
+    public void clear() {
+        Arrays.fill(this.table, 0);
+    }
+
+    /**
+     * @return the number of entries
+     */
+    public int capacity() {
+        return this.table.length / 2;
+    }
+
+    /**
+     * @return the data of the position, 0 if it is not in the table
+     */
+    public long probe(long key) {
+        int start = this.bucket(key);
+        for (int i = start; i < start + 2 * BUCKET_SIZE; i += 2) {
+            long data = this.table[i + 1];
+            if (data != 0 && (this.table[i] ^ data) == key) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores the result of the search of a position
+     *
+     * @param move
+     *            the best move found, {@link Move#NONE} if none
+     * @param score
+     *            the score; a win or a loss must count its plies from the
+     *            stored position, not from the root of the search, so that
+     *            it stays valid wherever the position is reached
+     * @param depth
+     *            the depth of the search, from 0 to 255
+     * @param bound
+     *            {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int start = this.bucket(key);
+        int replace = start;
+        int worst = Integer.MAX_VALUE;
+        for (int i = start; i < start + 2 * BUCKET_SIZE; i += 2) {
+            long data = this.table[i + 1];
+            if (data == 0 || (this.table[i] ^ data) == key) {
+                if (data != 0 && move == Move.NONE) {
+                    // keep the move of the previous search of this position
+                    move = move(data);
+                }
+                replace = i;
+                break;
+            }
+            // entries of old searches are the first ones to go
+            int value = depth(data) - 8 * ((this.age - age(data)) & AGE_MASK);
+            if (value < worst) {
+                worst = value;
+                replace = i;
+            }
+        }
+        long data = (move + 1L) & 0xffff | (score & 0xffffffffL) << SCORE_SHIFT
+                | (long) Math.min(depth, 255) << DEPTH_SHIFT | (long) bound << BOUND_SHIFT
+                | (long) this.age << AGE_SHIFT;
+        this.table[replace] = key ^ data;
+        this.table[replace + 1] = data;
+    }
+
+    private int bucket(long key) {
+        // the low bits of the key are mixed with the high ones
+        return (int) ((key ^ (key >>> 32)) & this.bucketMask) * BUCKET_SIZE * 2;
+    }
+
+    /**
+     * @return the move of an entry, {@link Move#NONE} if none
+     */
+    public static int move(long data) {
+        return (int) (data & 0xffff) - 1;
+    }
+
+    public static int score(long data) {
+        return (int) (data >>> SCORE_SHIFT);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xff;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 0x3;
+    }
+
+    private static int age(long data) {
+        return (int) (data >>> AGE_SHIFT) & AGE_MASK;
+    }
+}
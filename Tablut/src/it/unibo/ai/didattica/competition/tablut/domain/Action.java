@@ -29,6 +29,17 @@ public class Action implements Serializable {
 		}
 	}
 
+	/**
+	 * Creates the action corresponding to a packed move
+	 * 
+	 * @see Move#toAction(int)
+	 */
+	Action(int move) {
+		this.from = Move.boxName(Move.getRowFrom(move), Move.getColumnFrom(move));
+		this.to = Move.boxName(Move.getRowTo(move), Move.getColumnTo(move));
+		this.turn = Move.getTurn(move);
+	}
+
 	public String getFrom() {
 		return this.from;
 	}
@@ -75,14 +86,14 @@ public class Action implements Serializable {
 	 * @return means the index of the row where the pawn is moved from
 	 */
 	public int getRowFrom() {
-		return Integer.parseInt(this.from.charAt(1) + "") - 1;
+		return Character.digit(this.from.charAt(1), 10) - 1;
 	}
 
 	/**
 	 * @return means the index of the row where the pawn is moved to
 	 */
 	public int getRowTo() {
-		return Integer.parseInt(this.to.charAt(1) + "") - 1;
+		return Character.digit(this.to.charAt(1), 10) - 1;
 	}
 
 }
@@ -0,0 +1,340 @@
+package it.unibo.ai.didattica.competition.tablut.domain;
+
+/**
+ * This class represents a state of a 9x9 Tablut match stored as bitboards:
+ * one mask for the black pawns, one for the white pawns and one for the king.
+ * Boxes are numbered row by row (row * 9 + column); boxes 0..63 live in a
+ * long and boxes 64..80 in an int, so copying a state costs a handful of
+ * field assignments.
+ *
+ * The {@link Pawn} matrix returned by {@link #getBoard()} is only built on
+ * demand and then kept in sync; a fresh copy has no matrix at all. Since Gson
+ * serializes the board field and skips the (transient) masks, call
+ * {@link #getBoard()} or {@link #toStateTablut()} before sending the state on
+ * the wire. States received from the server can be converted with
+ * {@link #fromState(State)}.
+ *
+ * An empty throne is always reported as {@link Pawn#THRONE}, as in the Ashton
+ * rules.
+ *
+ */
+public class BitboardState extends State {
+
+	public static final int SIZE = 9;
+	public static final int THRONE_BOX = 4 * SIZE + 4;
+
+	/**
+	 * Boxes 0..63
+	 */
+	private transient long blackLow;
+	private transient long whiteLow;
+	private transient long kingLow;
+	/**
+	 * Boxes 64..80, stored from bit 0
+	 */
+	private transient int blackHigh;
+	private transient int whiteHigh;
+	private transient int kingHigh;
+	/**
+	 * Zobrist key of the position, updated on every change
+	 */
+	private transient long zobristKey;
+
+	/**
+	 * Creates the initial position of Tablut, with the same turn used by
+	 * {@link StateTablut}
+	 */
+	public BitboardState() {
+		super();
+		this.setTurn(Turn.BLACK);
+
+		this.setPawn(4, 4, Pawn.KING);
+
+		this.setPawn(2, 4, Pawn.WHITE);
+		this.setPawn(3, 4, Pawn.WHITE);
+		this.setPawn(5, 4, Pawn.WHITE);
+		this.setPawn(6, 4, Pawn.WHITE);
+		this.setPawn(4, 2, Pawn.WHITE);
+		this.setPawn(4, 3, Pawn.WHITE);
+		this.setPawn(4, 5, Pawn.WHITE);
+		this.setPawn(4, 6, Pawn.WHITE);
+
+		this.setPawn(0, 3, Pawn.BLACK);
+		this.setPawn(0, 4, Pawn.BLACK);
+		this.setPawn(0, 5, Pawn.BLACK);
+		this.setPawn(1, 4, Pawn.BLACK);
+		this.setPawn(8, 3, Pawn.BLACK);
+		this.setPawn(8, 4, Pawn.BLACK);
+		this.setPawn(8, 5, Pawn.BLACK);
+		this.setPawn(7, 4, Pawn.BLACK);
+		this.setPawn(3, 0, Pawn.BLACK);
+		this.setPawn(4, 0, Pawn.BLACK);
+		this.setPawn(5, 0, Pawn.BLACK);
+		this.setPawn(4, 1, Pawn.BLACK);
+		this.setPawn(3, 8, Pawn.BLACK);
+		this.setPawn(4, 8, Pawn.BLACK);
+		this.setPawn(5, 8, Pawn.BLACK);
+		this.setPawn(4, 7, Pawn.BLACK);
+	}
+
+	private BitboardState(BitboardState other) {
+		super();
+		this.blackLow = other.blackLow;
+		this.whiteLow = other.whiteLow;
+		this.kingLow = other.kingLow;
+		this.blackHigh = other.blackHigh;
+		this.whiteHigh = other.whiteHigh;
+		this.kingHigh = other.kingHigh;
+		this.zobristKey = other.zobristKey;
+		this.turn = other.turn;
+	}
+
+	/**
+	 * Converts any 9x9 state into a bitboard state
+	 *
+	 * @param state
+	 *            the state to be converted, it is not modified
+	 * @return a new bitboard state with the same board and turn
+	 */
+	public static BitboardState fromState(State state) {
+		if (state instanceof BitboardState) {
+			return ((BitboardState) state).clone();
+		}
+		if (state.getBoardSize() != SIZE) {
+			throw new IllegalArgumentException("BitboardState supports only 9x9 boards");
+		}
+		BitboardState result = new BitboardState();
+		result.clear();
+		for (int i = 0; i < SIZE; i++) {
+			for (int j = 0; j < SIZE; j++) {
+				result.setPawn(i, j, state.getPawn(i, j));
+			}
+		}
+		result.setTurn(state.getTurn());
+		return result;
+	}
+
+	/**
+	 * @return a {@link StateTablut} with the same board and turn, suitable for
+	 *         the JSON protocol
+	 */
+	public StateTablut toStateTablut() {
+		StateTablut result = new StateTablut();
+		for (int i = 0; i < SIZE; i++) {
+			for (int j = 0; j < SIZE; j++) {
+				result.setPawn(i, j, this.getPawn(i, j));
+			}
+		}
+		result.setTurn(this.turn);
+		return result;
+	}
+
+	private void clear() {
+		this.blackLow = 0;
+		this.whiteLow = 0;
+		this.kingLow = 0;
+		this.blackHigh = 0;
+		this.whiteHigh = 0;
+		this.kingHigh = 0;
+		this.zobristKey = Zobrist.turnKey(this.turn);
+		this.board = null;
+	}
+
+	@Override
+	public int getBoardSize() {
+		return SIZE;
+	}
+
+	@Override
+	public Pawn getPawn(int row, int column) {
+		int box = row * SIZE + column;
+		if (box < 64) {
+			long bit = 1L << box;
+			if ((this.blackLow & bit) != 0)
+				return Pawn.BLACK;
+			if ((this.whiteLow & bit) != 0)
+				return Pawn.WHITE;
+			if ((this.kingLow & bit) != 0)
+				return Pawn.KING;
+		} else {
+			int bit = 1 << (box - 64);
+			if ((this.blackHigh & bit) != 0)
+				return Pawn.BLACK;
+			if ((this.whiteHigh & bit) != 0)
+				return Pawn.WHITE;
+			if ((this.kingHigh & bit) != 0)
+				return Pawn.KING;
+		}
+		return box == THRONE_BOX ? Pawn.THRONE : Pawn.EMPTY;
+	}
+
+	@Override
+	public void setPawn(int row, int column, Pawn pawn) {
+		int box = row * SIZE + column;
+		this.zobristKey ^= Zobrist.pawnKey(this.getPawn(row, column), box) ^ Zobrist.pawnKey(pawn, box);
+		if (box < 64) {
+			long bit = 1L << box;
+			this.blackLow &= ~bit;
+			this.whiteLow &= ~bit;
+			this.kingLow &= ~bit;
+			if (pawn == Pawn.BLACK)
+				this.blackLow |= bit;
+			else if (pawn == Pawn.WHITE)
+				this.whiteLow |= bit;
+			else if (pawn == Pawn.KING)
+				this.kingLow |= bit;
+		} else {
+			int bit = 1 << (box - 64);
+			this.blackHigh &= ~bit;
+			this.whiteHigh &= ~bit;
+			this.kingHigh &= ~bit;
+			if (pawn == Pawn.BLACK)
+				this.blackHigh |= bit;
+			else if (pawn == Pawn.WHITE)
+				this.whiteHigh |= bit;
+			else if (pawn == Pawn.KING)
+				this.kingHigh |= bit;
+		}
+		if (this.board != null) {
+			this.board[row][column] = this.getPawn(row, column);
+		}
+	}
+
+	@Override
+	public void removePawn(int row, int column) {
+		this.setPawn(row, column, Pawn.EMPTY);
+	}
+
+	/**
+	 * Builds the matrix view of the board the first time it is requested. Code
+	 * that writes directly into the matrix must hand it back through
+	 * {@link #setBoard(Pawn[][])}.
+	 */
+	@Override
+	public Pawn[][] getBoard() {
+		if (this.board == null) {
+			Pawn[][] result = new Pawn[SIZE][SIZE];
+			for (int i = 0; i < SIZE; i++) {
+				for (int j = 0; j < SIZE; j++) {
+					result[i][j] = this.getPawn(i, j);
+				}
+			}
+			this.board = result;
+		}
+		return this.board;
+	}
+
+	@Override
+	public void setBoard(Pawn[][] board) {
+		if (board.length != SIZE) {
+			throw new IllegalArgumentException("BitboardState supports only 9x9 boards");
+		}
+		this.clear();
+		for (int i = 0; i < SIZE; i++) {
+			for (int j = 0; j < SIZE; j++) {
+				this.setPawn(i, j, board[i][j]);
+			}
+		}
+		// the caller keeps its array: the matrix is built again from the
+		// masks when requested
+	}
+
+	@Override
+	public void setTurn(Turn turn) {
+		this.zobristKey ^= Zobrist.turnKey(this.turn) ^ Zobrist.turnKey(turn);
+		this.turn = turn;
+	}
+
+	/**
+	 * @return the Zobrist key of the position, kept up to date by every
+	 *         change of the board or of the turn
+	 */
+	@Override
+	public long getZobristKey() {
+		return this.zobristKey;
+	}
+
+	@Override
+	public int getNumberOf(Pawn color) {
+		switch (color) {
+		case BLACK:
+			return Long.bitCount(this.blackLow) + Integer.bitCount(this.blackHigh);
+		case WHITE:
+			return Long.bitCount(this.whiteLow) + Integer.bitCount(this.whiteHigh);
+		case KING:
+			return Long.bitCount(this.kingLow) + Integer.bitCount(this.kingHigh);
+		case THRONE:
+			return this.getPawn(4, 4) == Pawn.THRONE ? 1 : 0;
+		default:
+			return SIZE * SIZE - this.getNumberOf(Pawn.BLACK) - this.getNumberOf(Pawn.WHITE)
+					- this.getNumberOf(Pawn.KING) - this.getNumberOf(Pawn.THRONE);
+		}
+	}
+
+	/**
+	 * @return the boxes occupied by black pawns, 0..63
+	 */
+	public long getBlackLow() {
+		return blackLow;
+	}
+
+	/**
+	 * @return the boxes occupied by black pawns, 64..80 starting from bit 0
+	 */
+	public int getBlackHigh() {
+		return blackHigh;
+	}
+
+	/**
+	 * @return the boxes occupied by white pawns (king excluded), 0..63
+	 */
+	public long getWhiteLow() {
+		return whiteLow;
+	}
+
+	/**
+	 * @return the boxes occupied by white pawns (king excluded), 64..80
+	 *         starting from bit 0
+	 */
+	public int getWhiteHigh() {
+		return whiteHigh;
+	}
+
+	/**
+	 * @return the box of the king (row * 9 + column), -1 if it is not on the
+	 *         board
+	 */
+	public int getKingBox() {
+		if (this.kingLow != 0)
+			return Long.numberOfTrailingZeros(this.kingLow);
+		if (this.kingHigh != 0)
+			return 64 + Integer.numberOfTrailingZeros(this.kingHigh);
+		return -1;
+	}
+
+	@Override
+	public BitboardState clone() {
+		return new BitboardState(this);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (this.getClass() != obj.getClass())
+			return false;
+		BitboardState other = (BitboardState) obj;
+		return this.zobristKey == other.zobristKey && this.blackLow == other.blackLow
+				&& this.whiteLow == other.whiteLow && this.kingLow == other.kingLow
+				&& this.blackHigh == other.blackHigh && this.whiteHigh == other.whiteHigh
+				&& this.kingHigh == other.kingHigh && this.turn == other.turn;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(this.zobristKey);
+	}
+
+}
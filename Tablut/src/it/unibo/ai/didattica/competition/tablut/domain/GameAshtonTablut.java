@@ -42,7 +42,43 @@ public class GameAshtonTablut implements Game {
 	private Logger loggGame;
 	private List<String> citadels;
 	// private List<String> strangeCitadels;
-	private List<State> drawConditions;
+	/**
+	 * Positions reached since the last capture, by Zobrist key
+	 */
+	private RepetitionTable drawConditions;
+	/**
+	 * Whether the engine runs without game log and without printing on stdout
+	 */
+	private boolean silent;
+	/**
+	 * Whether the states, and the warnings, are also printed on the console, not
+	 * only in the game log
+	 */
+	private boolean echo;
+
+	/**
+	 * Creates a headless engine: nothing is logged, printed on stdout or
+	 * written to file. It is meant for players that apply thousands of moves
+	 * per second in their search; the server keeps using the constructors
+	 * that produce the game log.
+	 * 
+	 * @param repeated_moves_allowed
+	 *            number of repeated states that can occur before a draw
+	 * @param cache_size
+	 *            number of states kept in memory, negative means infinite
+	 */
+	public GameAshtonTablut(int repeated_moves_allowed, int cache_size) {
+		super();
+		this.repeated_moves_allowed = repeated_moves_allowed;
+		this.cache_size = cache_size;
+		this.movesWithutCapturing = 0;
+		this.silent = true;
+		// private logger that discards everything, no handler is attached
+		this.loggGame = Logger.getAnonymousLogger();
+		this.loggGame.setUseParentHandlers(false);
+		this.loggGame.setLevel(Level.OFF);
+		this.initRules();
+	}
 
 	public GameAshtonTablut(int repeated_moves_allowed, int cache_size, String logs_folder, String whiteName,
 			String blackName) {
@@ -51,7 +87,19 @@ public class GameAshtonTablut implements Game {
 
 	public GameAshtonTablut(State state, int repeated_moves_allowed, int cache_size, String logs_folder,
 			String whiteName, String blackName) {
+		this(state, repeated_moves_allowed, cache_size, logs_folder, whiteName, blackName, true);
+	}
+
+	/**
+	 * @param echo
+	 *            false to write the states only in the game log, without
+	 *            printing them on stdout, e.g. when many games are played at
+	 *            the same time in the same process
+	 */
+	public GameAshtonTablut(State state, int repeated_moves_allowed, int cache_size, String logs_folder,
+			String whiteName, String blackName, boolean echo) {
 		super();
+		this.echo = echo;
 		this.repeated_moves_allowed = repeated_moves_allowed;
 		this.cache_size = cache_size;
 		this.movesWithutCapturing = 0;
@@ -74,15 +122,24 @@ public class GameAshtonTablut implements Game {
 			e.printStackTrace();
 			System.exit(1);
 		}
-		this.loggGame = Logger.getLogger("GameLog");
+		// one logger per game log, so that games played at the same time in
+		// the same process do not write in each other's file
+		this.loggGame = Logger.getLogger("GameLog." + p.getFileName());
 		loggGame.addHandler(this.fh);
+		// without echo the warnings do not reach the console handler either
+		loggGame.setUseParentHandlers(echo);
 		this.fh.setFormatter(new SimpleFormatter());
 		loggGame.setLevel(Level.FINE);
 		loggGame.fine("Players:\t" + whiteName + "\tvs\t" + blackName);
 		loggGame.fine("Repeated moves allowed:\t" + repeated_moves_allowed + "\tCache:\t" + cache_size);
 		loggGame.fine("Inizio partita");
 		loggGame.fine("Stato:\n" + state.toString());
-		drawConditions = new ArrayList<State>();
+		this.silent = false;
+		this.initRules();
+	}
+
+	private void initRules() {
+		drawConditions = new RepetitionTable(this.cache_size);
 		this.citadels = new ArrayList<String>();
 		// this.strangeCitadels = new ArrayList<String>();
 		this.citadels.add("a4");
@@ -111,10 +168,14 @@ public class GameAshtonTablut implements Game {
 	public State checkMove(State state, Action a)
 			throws BoardException, ActionException, StopException, PawnException, DiagonalException, ClimbingException,
 			ThroneException, OccupitedException, ClimbingCitadelException, CitadelException {
-		this.loggGame.fine(a.toString());
+		if (!this.silent) {
+			this.loggGame.fine(a.toString());
+		}
 		// controllo la mossa
 		if (a.getTo().length() != 2 || a.getFrom().length() != 2) {
-			this.loggGame.warning("Formato mossa errato");
+			if (!this.silent) {
+				this.loggGame.warning("Formato mossa errato");
+			}
 			throw new ActionException(a);
 		}
 		int columnFrom = a.getColumnFrom();
@@ -123,39 +184,51 @@ public class GameAshtonTablut implements Game {
 		int rowTo = a.getRowTo();
 
 		// controllo se sono fuori dal tabellone
-		if (columnFrom > state.getBoard().length - 1 || rowFrom > state.getBoard().length - 1
-				|| rowTo > state.getBoard().length - 1 || columnTo > state.getBoard().length - 1 || columnFrom < 0
+		if (columnFrom > state.getBoardSize() - 1 || rowFrom > state.getBoardSize() - 1
+				|| rowTo > state.getBoardSize() - 1 || columnTo > state.getBoardSize() - 1 || columnFrom < 0
 				|| rowFrom < 0 || rowTo < 0 || columnTo < 0) {
-			this.loggGame.warning("Mossa fuori tabellone");
+			if (!this.silent) {
+				this.loggGame.warning("Mossa fuori tabellone");
+			}
 			throw new BoardException(a);
 		}
 
 		// controllo che non vada sul trono
 		if (state.getPawn(rowTo, columnTo).equalsPawn(State.Pawn.THRONE.toString())) {
-			this.loggGame.warning("Mossa sul trono");
+			if (!this.silent) {
+				this.loggGame.warning("Mossa sul trono");
+			}
 			throw new ThroneException(a);
 		}
 
 		// controllo la casella di arrivo
 		if (!state.getPawn(rowTo, columnTo).equalsPawn(State.Pawn.EMPTY.toString())) {
-			this.loggGame.warning("Mossa sopra una casella occupata");
+			if (!this.silent) {
+				this.loggGame.warning("Mossa sopra una casella occupata");
+			}
 			throw new OccupitedException(a);
 		}
 		if (this.citadels.contains(state.getBox(rowTo, columnTo))
 				&& !this.citadels.contains(state.getBox(rowFrom, columnFrom))) {
-			this.loggGame.warning("Mossa che arriva sopra una citadel");
+			if (!this.silent) {
+				this.loggGame.warning("Mossa che arriva sopra una citadel");
+			}
 			throw new CitadelException(a);
 		}
 		if (this.citadels.contains(state.getBox(rowTo, columnTo))
 				&& this.citadels.contains(state.getBox(rowFrom, columnFrom))) {
 			if (rowFrom == rowTo) {
 				if (columnFrom - columnTo > 5 || columnFrom - columnTo < -5) {
-					this.loggGame.warning("Mossa che arriva sopra una citadel");
+					if (!this.silent) {
+						this.loggGame.warning("Mossa che arriva sopra una citadel");
+					}
 					throw new CitadelException(a);
 				}
 			} else {
 				if (rowFrom - rowTo > 5 || rowFrom - rowTo < -5) {
-					this.loggGame.warning("Mossa che arriva sopra una citadel");
+					if (!this.silent) {
+						this.loggGame.warning("Mossa che arriva sopra una citadel");
+					}
 					throw new CitadelException(a);
 				}
 			}
@@ -164,7 +237,9 @@ public class GameAshtonTablut implements Game {
 
 		// controllo se cerco di stare fermo
 		if (rowFrom == rowTo && columnFrom == columnTo) {
-			this.loggGame.warning("Nessuna mossa");
+			if (!this.silent) {
+				this.loggGame.warning("Nessuna mossa");
+			}
 			throw new StopException(a);
 		}
 
@@ -172,20 +247,26 @@ public class GameAshtonTablut implements Game {
 		if (state.getTurn().equalsTurn(State.Turn.WHITE.toString())) {
 			if (!state.getPawn(rowFrom, columnFrom).equalsPawn("W")
 					&& !state.getPawn(rowFrom, columnFrom).equalsPawn("K")) {
-				this.loggGame.warning("Giocatore " + a.getTurn() + " cerca di muovere una pedina avversaria");
+				if (!this.silent) {
+					this.loggGame.warning("Giocatore " + a.getTurn() + " cerca di muovere una pedina avversaria");
+				}
 				throw new PawnException(a);
 			}
 		}
 		if (state.getTurn().equalsTurn(State.Turn.BLACK.toString())) {
 			if (!state.getPawn(rowFrom, columnFrom).equalsPawn("B")) {
-				this.loggGame.warning("Giocatore " + a.getTurn() + " cerca di muovere una pedina avversaria");
+				if (!this.silent) {
+					this.loggGame.warning("Giocatore " + a.getTurn() + " cerca di muovere una pedina avversaria");
+				}
 				throw new PawnException(a);
 			}
 		}
 
 		// controllo di non muovere in diagonale
 		if (rowFrom != rowTo && columnFrom != columnTo) {
-			this.loggGame.warning("Mossa in diagonale");
+			if (!this.silent) {
+				this.loggGame.warning("Mossa in diagonale");
+			}
 			throw new DiagonalException(a);
 		}
 
@@ -195,16 +276,22 @@ public class GameAshtonTablut implements Game {
 				for (int i = columnTo; i < columnFrom; i++) {
 					if (!state.getPawn(rowFrom, i).equalsPawn(State.Pawn.EMPTY.toString())) {
 						if (state.getPawn(rowFrom, i).equalsPawn(State.Pawn.THRONE.toString())) {
-							this.loggGame.warning("Mossa che scavalca il trono");
+							if (!this.silent) {
+								this.loggGame.warning("Mossa che scavalca il trono");
+							}
 							throw new ClimbingException(a);
 						} else {
-							this.loggGame.warning("Mossa che scavalca una pedina");
+							if (!this.silent) {
+								this.loggGame.warning("Mossa che scavalca una pedina");
+							}
 							throw new ClimbingException(a);
 						}
 					}
 					if (this.citadels.contains(state.getBox(rowFrom, i))
 							&& !this.citadels.contains(state.getBox(a.getRowFrom(), a.getColumnFrom()))) {
-						this.loggGame.warning("Mossa che scavalca una citadel");
+						if (!this.silent) {
+							this.loggGame.warning("Mossa che scavalca una citadel");
+						}
 						throw new ClimbingCitadelException(a);
 					}
 				}
@@ -212,16 +299,22 @@ public class GameAshtonTablut implements Game {
 				for (int i = columnFrom + 1; i <= columnTo; i++) {
 					if (!state.getPawn(rowFrom, i).equalsPawn(State.Pawn.EMPTY.toString())) {
 						if (state.getPawn(rowFrom, i).equalsPawn(State.Pawn.THRONE.toString())) {
-							this.loggGame.warning("Mossa che scavalca il trono");
+							if (!this.silent) {
+								this.loggGame.warning("Mossa che scavalca il trono");
+							}
 							throw new ClimbingException(a);
 						} else {
-							this.loggGame.warning("Mossa che scavalca una pedina");
+							if (!this.silent) {
+								this.loggGame.warning("Mossa che scavalca una pedina");
+							}
 							throw new ClimbingException(a);
 						}
 					}
 					if (this.citadels.contains(state.getBox(rowFrom, i))
 							&& !this.citadels.contains(state.getBox(a.getRowFrom(), a.getColumnFrom()))) {
-						this.loggGame.warning("Mossa che scavalca una citadel");
+						if (!this.silent) {
+							this.loggGame.warning("Mossa che scavalca una citadel");
+						}
 						throw new ClimbingCitadelException(a);
 					}
 				}
@@ -231,16 +324,22 @@ public class GameAshtonTablut implements Game {
 				for (int i = rowTo; i < rowFrom; i++) {
 					if (!state.getPawn(i, columnFrom).equalsPawn(State.Pawn.EMPTY.toString())) {
 						if (state.getPawn(i, columnFrom).equalsPawn(State.Pawn.THRONE.toString())) {
-							this.loggGame.warning("Mossa che scavalca il trono");
+							if (!this.silent) {
+								this.loggGame.warning("Mossa che scavalca il trono");
+							}
 							throw new ClimbingException(a);
 						} else {
-							this.loggGame.warning("Mossa che scavalca una pedina");
+							if (!this.silent) {
+								this.loggGame.warning("Mossa che scavalca una pedina");
+							}
 							throw new ClimbingException(a);
 						}
 					}
 					if (this.citadels.contains(state.getBox(i, columnFrom))
 							&& !this.citadels.contains(state.getBox(a.getRowFrom(), a.getColumnFrom()))) {
-						this.loggGame.warning("Mossa che scavalca una citadel");
+						if (!this.silent) {
+							this.loggGame.warning("Mossa che scavalca una citadel");
+						}
 						throw new ClimbingCitadelException(a);
 					}
 				}
@@ -248,16 +347,22 @@ public class GameAshtonTablut implements Game {
 				for (int i = rowFrom + 1; i <= rowTo; i++) {
 					if (!state.getPawn(i, columnFrom).equalsPawn(State.Pawn.EMPTY.toString())) {
 						if (state.getPawn(i, columnFrom).equalsPawn(State.Pawn.THRONE.toString())) {
-							this.loggGame.warning("Mossa che scavalca il trono");
+							if (!this.silent) {
+								this.loggGame.warning("Mossa che scavalca il trono");
+							}
 							throw new ClimbingException(a);
 						} else {
-							this.loggGame.warning("Mossa che scavalca una pedina");
+							if (!this.silent) {
+								this.loggGame.warning("Mossa che scavalca una pedina");
+							}
 							throw new ClimbingException(a);
 						}
 					}
 					if (this.citadels.contains(state.getBox(i, columnFrom))
 							&& !this.citadels.contains(state.getBox(a.getRowFrom(), a.getColumnFrom()))) {
-						this.loggGame.warning("Mossa che scavalca una citadel");
+						if (!this.silent) {
+							this.loggGame.warning("Mossa che scavalca una citadel");
+						}
 						throw new ClimbingCitadelException(a);
 					}
 				}
@@ -265,129 +370,154 @@ public class GameAshtonTablut implements Game {
 		}
 
 		// se sono arrivato qui, muovo la pedina
-		state = this.movePawn(state, a);
+		state = this.movePawn(state, rowFrom, columnFrom, rowTo, columnTo);
+
+		return this.afterMove(state, rowTo, columnTo);
+	}
 
+	/**
+	 * Applies a move packed with {@link Move} without validating it: the
+	 * caller must guarantee that the move is legal in the given state (e.g.
+	 * because it has been generated from it). Captures, victories and draws
+	 * are handled exactly as in {@link #checkMove(State, Action)}.
+	 * 
+	 * @param state
+	 *            the state of the game, it is modified
+	 * @param move
+	 *            the packed move
+	 * @return the new state of the game
+	 */
+	public State applyMove(State state, int move) {
+		if (!this.silent) {
+			this.loggGame.fine(Move.toString(move));
+		}
+		int rowTo = Move.getRowTo(move);
+		int columnTo = Move.getColumnTo(move);
+		state = this.movePawn(state, Move.getRowFrom(move), Move.getColumnFrom(move), rowTo, columnTo);
+		return this.afterMove(state, rowTo, columnTo);
+	}
+
+	/**
+	 * Checks captures, victories and draws after a pawn has been moved in
+	 * (rowTo, columnTo)
+	 */
+	private State afterMove(State state, int rowTo, int columnTo) {
 		// a questo punto controllo lo stato per eventuali catture
 		if (state.getTurn().equalsTurn("W")) {
-			state = this.checkCaptureBlack(state, a);
+			state = this.checkCaptureBlack(state, rowTo, columnTo);
 		} else if (state.getTurn().equalsTurn("B")) {
-			state = this.checkCaptureWhite(state, a);
+			state = this.checkCaptureWhite(state, rowTo, columnTo);
 		}
 
 		// if something has been captured, clear cache for draws
 		if (this.movesWithutCapturing == 0) {
 			this.drawConditions.clear();
-			this.loggGame.fine("Capture! Draw cache cleared!");
+			if (!this.silent) {
+				this.loggGame.fine("Capture! Draw cache cleared!");
+			}
 		}
 
 		// controllo pareggio
-		int trovati = 0;
-		for (State s : drawConditions) {
-
-			System.out.println(s.toString());
-
-			if (s.equals(state)) {
-				// DEBUG: //
-				// System.out.println("UGUALI:");
-				// System.out.println("STATO VECCHIO:\t" + s.toLinearString());
-				// System.out.println("STATO NUOVO:\t" +
-				// state.toLinearString());
-
-				trovati++;
-				if (trovati > repeated_moves_allowed) {
-					state.setTurn(State.Turn.DRAW);
-					this.loggGame.fine("Partita terminata in pareggio per numero di stati ripetuti");
-					break;
-				}
-			} else {
-				// DEBUG: //
-				// System.out.println("DIVERSI:");
-				// System.out.println("STATO VECCHIO:\t" + s.toLinearString());
-				// System.out.println("STATO NUOVO:\t" +
-				// state.toLinearString());
+		int trovati = this.drawConditions.count(state.getZobristKey());
+		if (trovati > repeated_moves_allowed) {
+			state.setTurn(State.Turn.DRAW);
+			if (!this.silent) {
+				this.loggGame.fine("Partita terminata in pareggio per numero di stati ripetuti");
 			}
 		}
 		if (trovati > 0) {
-			this.loggGame.fine("Equal states found: " + trovati);
-		}
-		if (cache_size >= 0 && this.drawConditions.size() > cache_size) {
-			this.drawConditions.remove(0);
+			if (!this.silent) {
+				this.loggGame.fine("Equal states found: " + trovati);
+			}
 		}
-		this.drawConditions.add(state.clone());
-
-		this.loggGame.fine("Current draw cache size: " + this.drawConditions.size());
+		this.drawConditions.add(state.getZobristKey());
 
-		this.loggGame.fine("Stato:\n" + state.toString());
-		System.out.println("Stato:\n" + state.toString());
+		if (!this.silent) {
+			this.loggGame.fine("Current draw cache size: " + this.drawConditions.size());
+			this.loggGame.fine("Stato:\n" + state.toString());
+			if (this.echo) {
+				System.out.println("Stato:\n" + state.toString());
+			}
+		}
 
 		return state;
 	}
 
-	private State checkCaptureWhite(State state, Action a) {
+	private State checkCaptureWhite(State state, int rowTo, int columnTo) {
 		// controllo se mangio a destra
-		if (a.getColumnTo() < state.getBoard().length - 2
-				&& state.getPawn(a.getRowTo(), a.getColumnTo() + 1).equalsPawn("B")
-				&& (state.getPawn(a.getRowTo(), a.getColumnTo() + 2).equalsPawn("W")
-						|| state.getPawn(a.getRowTo(), a.getColumnTo() + 2).equalsPawn("T")
-						|| state.getPawn(a.getRowTo(), a.getColumnTo() + 2).equalsPawn("K")
-						|| (this.citadels.contains(state.getBox(a.getRowTo(), a.getColumnTo() + 2))
-								&& !(a.getColumnTo() + 2 == 8 && a.getRowTo() == 4)
-								&& !(a.getColumnTo() + 2 == 4 && a.getRowTo() == 0)
-								&& !(a.getColumnTo() + 2 == 4 && a.getRowTo() == 8)
-								&& !(a.getColumnTo() + 2 == 0 && a.getRowTo() == 4)))) {
-			state.removePawn(a.getRowTo(), a.getColumnTo() + 1);
+		if (columnTo < state.getBoardSize() - 2
+				&& state.getPawn(rowTo, columnTo + 1).equalsPawn("B")
+				&& (state.getPawn(rowTo, columnTo + 2).equalsPawn("W")
+						|| state.getPawn(rowTo, columnTo + 2).equalsPawn("T")
+						|| state.getPawn(rowTo, columnTo + 2).equalsPawn("K")
+						|| (this.citadels.contains(state.getBox(rowTo, columnTo + 2))
+								&& !(columnTo + 2 == 8 && rowTo == 4)
+								&& !(columnTo + 2 == 4 && rowTo == 0)
+								&& !(columnTo + 2 == 4 && rowTo == 8)
+								&& !(columnTo + 2 == 0 && rowTo == 4)))) {
+			state.removePawn(rowTo, columnTo + 1);
 			this.movesWithutCapturing = -1;
-			this.loggGame.fine("Pedina nera rimossa in: " + state.getBox(a.getRowTo(), a.getColumnTo() + 1));
+			if (!this.silent) {
+				this.loggGame.fine("Pedina nera rimossa in: " + state.getBox(rowTo, columnTo + 1));
+			}
 		}
 		// controllo se mangio a sinistra
-		if (a.getColumnTo() > 1 && state.getPawn(a.getRowTo(), a.getColumnTo() - 1).equalsPawn("B")
-				&& (state.getPawn(a.getRowTo(), a.getColumnTo() - 2).equalsPawn("W")
-						|| state.getPawn(a.getRowTo(), a.getColumnTo() - 2).equalsPawn("T")
-						|| state.getPawn(a.getRowTo(), a.getColumnTo() - 2).equalsPawn("K")
-						|| (this.citadels.contains(state.getBox(a.getRowTo(), a.getColumnTo() - 2))
-								&& !(a.getColumnTo() - 2 == 8 && a.getRowTo() == 4)
-								&& !(a.getColumnTo() - 2 == 4 && a.getRowTo() == 0)
-								&& !(a.getColumnTo() - 2 == 4 && a.getRowTo() == 8)
-								&& !(a.getColumnTo() - 2 == 0 && a.getRowTo() == 4)))) {
-			state.removePawn(a.getRowTo(), a.getColumnTo() - 1);
+		if (columnTo > 1 && state.getPawn(rowTo, columnTo - 1).equalsPawn("B")
+				&& (state.getPawn(rowTo, columnTo - 2).equalsPawn("W")
+						|| state.getPawn(rowTo, columnTo - 2).equalsPawn("T")
+						|| state.getPawn(rowTo, columnTo - 2).equalsPawn("K")
+						|| (this.citadels.contains(state.getBox(rowTo, columnTo - 2))
+								&& !(columnTo - 2 == 8 && rowTo == 4)
+								&& !(columnTo - 2 == 4 && rowTo == 0)
+								&& !(columnTo - 2 == 4 && rowTo == 8)
+								&& !(columnTo - 2 == 0 && rowTo == 4)))) {
+			state.removePawn(rowTo, columnTo - 1);
 			this.movesWithutCapturing = -1;
-			this.loggGame.fine("Pedina nera rimossa in: " + state.getBox(a.getRowTo(), a.getColumnTo() - 1));
+			if (!this.silent) {
+				this.loggGame.fine("Pedina nera rimossa in: " + state.getBox(rowTo, columnTo - 1));
+			}
 		}
 		// controllo se mangio sopra
-		if (a.getRowTo() > 1 && state.getPawn(a.getRowTo() - 1, a.getColumnTo()).equalsPawn("B")
-				&& (state.getPawn(a.getRowTo() - 2, a.getColumnTo()).equalsPawn("W")
-						|| state.getPawn(a.getRowTo() - 2, a.getColumnTo()).equalsPawn("T")
-						|| state.getPawn(a.getRowTo() - 2, a.getColumnTo()).equalsPawn("K")
-						|| (this.citadels.contains(state.getBox(a.getRowTo() - 2, a.getColumnTo()))
-								&& !(a.getColumnTo() == 8 && a.getRowTo() - 2 == 4)
-								&& !(a.getColumnTo() == 4 && a.getRowTo() - 2 == 0)
-								&& !(a.getColumnTo() == 4 && a.getRowTo() - 2 == 8)
-								&& !(a.getColumnTo() == 0 && a.getRowTo() - 2 == 4)))) {
-			state.removePawn(a.getRowTo() - 1, a.getColumnTo());
+		if (rowTo > 1 && state.getPawn(rowTo - 1, columnTo).equalsPawn("B")
+				&& (state.getPawn(rowTo - 2, columnTo).equalsPawn("W")
+						|| state.getPawn(rowTo - 2, columnTo).equalsPawn("T")
+						|| state.getPawn(rowTo - 2, columnTo).equalsPawn("K")
+						|| (this.citadels.contains(state.getBox(rowTo - 2, columnTo))
+								&& !(columnTo == 8 && rowTo - 2 == 4)
+								&& !(columnTo == 4 && rowTo - 2 == 0)
+								&& !(columnTo == 4 && rowTo - 2 == 8)
+								&& !(columnTo == 0 && rowTo - 2 == 4)))) {
+			state.removePawn(rowTo - 1, columnTo);
 			this.movesWithutCapturing = -1;
-			this.loggGame.fine("Pedina nera rimossa in: " + state.getBox(a.getRowTo() - 1, a.getColumnTo()));
+			if (!this.silent) {
+				this.loggGame.fine("Pedina nera rimossa in: " + state.getBox(rowTo - 1, columnTo));
+			}
 		}
 		// controllo se mangio sotto
-		if (a.getRowTo() < state.getBoard().length - 2
-				&& state.getPawn(a.getRowTo() + 1, a.getColumnTo()).equalsPawn("B")
-				&& (state.getPawn(a.getRowTo() + 2, a.getColumnTo()).equalsPawn("W")
-						|| state.getPawn(a.getRowTo() + 2, a.getColumnTo()).equalsPawn("T")
-						|| state.getPawn(a.getRowTo() + 2, a.getColumnTo()).equalsPawn("K")
-						|| (this.citadels.contains(state.getBox(a.getRowTo() + 2, a.getColumnTo()))
-								&& !(a.getColumnTo() == 8 && a.getRowTo() + 2 == 4)
-								&& !(a.getColumnTo() == 4 && a.getRowTo() + 2 == 0)
-								&& !(a.getColumnTo() == 4 && a.getRowTo() + 2 == 8)
-								&& !(a.getColumnTo() == 0 && a.getRowTo() + 2 == 4)))) {
-			state.removePawn(a.getRowTo() + 1, a.getColumnTo());
+		if (rowTo < state.getBoardSize() - 2
+				&& state.getPawn(rowTo + 1, columnTo).equalsPawn("B")
+				&& (state.getPawn(rowTo + 2, columnTo).equalsPawn("W")
+						|| state.getPawn(rowTo + 2, columnTo).equalsPawn("T")
+						|| state.getPawn(rowTo + 2, columnTo).equalsPawn("K")
+						|| (this.citadels.contains(state.getBox(rowTo + 2, columnTo))
+								&& !(columnTo == 8 && rowTo + 2 == 4)
+								&& !(columnTo == 4 && rowTo + 2 == 0)
+								&& !(columnTo == 4 && rowTo + 2 == 8)
+								&& !(columnTo == 0 && rowTo + 2 == 4)))) {
+			state.removePawn(rowTo + 1, columnTo);
 			this.movesWithutCapturing = -1;
-			this.loggGame.fine("Pedina nera rimossa in: " + state.getBox(a.getRowTo() + 1, a.getColumnTo()));
+			if (!this.silent) {
+				this.loggGame.fine("Pedina nera rimossa in: " + state.getBox(rowTo + 1, columnTo));
+			}
 		}
 		// controllo se ho vinto
-		if (a.getRowTo() == 0 || a.getRowTo() == state.getBoard().length - 1 || a.getColumnTo() == 0
-				|| a.getColumnTo() == state.getBoard().length - 1) {
-			if (state.getPawn(a.getRowTo(), a.getColumnTo()).equalsPawn("K")) {
+		if (rowTo == 0 || rowTo == state.getBoardSize() - 1 || columnTo == 0
+				|| columnTo == state.getBoardSize() - 1) {
+			if (state.getPawn(rowTo, columnTo).equalsPawn("K")) {
 				state.setTurn(State.Turn.WHITEWIN);
-				this.loggGame.fine("Bianco vince con re in " + a.getTo());
+				if (!this.silent) {
+					this.loggGame.fine("Bianco vince con re in " + state.getBox(rowTo, columnTo));
+				}
 			}
 		}
 		// TODO: implement the winning condition of the capture of the last
@@ -397,232 +527,240 @@ public class GameAshtonTablut implements Game {
 		return state;
 	}
 
-	private State checkCaptureBlackKingLeft(State state, Action a) {
+	private State checkCaptureBlackKingLeft(State state, int rowTo, int columnTo) {
 		// ho il re sulla sinistra
-		if (a.getColumnTo() > 1 && state.getPawn(a.getRowTo(), a.getColumnTo() - 1).equalsPawn("K")) {
+		if (columnTo > 1 && state.getPawn(rowTo, columnTo - 1).equalsPawn("K")) {
 			// re sul trono
-			if (state.getBox(a.getRowTo(), a.getColumnTo() - 1).equals("e5")) {
+			if (state.getBox(rowTo, columnTo - 1).equals("e5")) {
 				if (state.getPawn(3, 4).equalsPawn("B") && state.getPawn(4, 3).equalsPawn("B")
 						&& state.getPawn(5, 4).equalsPawn("B")) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo(), a.getColumnTo() - 1));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo, columnTo - 1));
 				}
 			}
 			// re adiacente al trono
-			if (state.getBox(a.getRowTo(), a.getColumnTo() - 1).equals("e4")) {
+			if (state.getBox(rowTo, columnTo - 1).equals("e4")) {
 				if (state.getPawn(2, 4).equalsPawn("B") && state.getPawn(3, 3).equalsPawn("B")) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo(), a.getColumnTo() - 1));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo, columnTo - 1));
 				}
 			}
-			if (state.getBox(a.getRowTo(), a.getColumnTo() - 1).equals("f5")) {
+			if (state.getBox(rowTo, columnTo - 1).equals("f5")) {
 				if (state.getPawn(5, 5).equalsPawn("B") && state.getPawn(3, 5).equalsPawn("B")) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo(), a.getColumnTo() - 1));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo, columnTo - 1));
 				}
 			}
-			if (state.getBox(a.getRowTo(), a.getColumnTo() - 1).equals("e6")) {
+			if (state.getBox(rowTo, columnTo - 1).equals("e6")) {
 				if (state.getPawn(6, 4).equalsPawn("B") && state.getPawn(5, 3).equalsPawn("B")) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo(), a.getColumnTo() - 1));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo, columnTo - 1));
 				}
 			}
 			// sono fuori dalle zone del trono
-			if (!state.getBox(a.getRowTo(), a.getColumnTo() - 1).equals("e5")
-					&& !state.getBox(a.getRowTo(), a.getColumnTo() - 1).equals("e6")
-					&& !state.getBox(a.getRowTo(), a.getColumnTo() - 1).equals("e4")
-					&& !state.getBox(a.getRowTo(), a.getColumnTo() - 1).equals("f5")) {
-				if (state.getPawn(a.getRowTo(), a.getColumnTo() - 2).equalsPawn("B")
-						|| this.citadels.contains(state.getBox(a.getRowTo(), a.getColumnTo() - 2))) {
+			if (!state.getBox(rowTo, columnTo - 1).equals("e5")
+					&& !state.getBox(rowTo, columnTo - 1).equals("e6")
+					&& !state.getBox(rowTo, columnTo - 1).equals("e4")
+					&& !state.getBox(rowTo, columnTo - 1).equals("f5")) {
+				if (state.getPawn(rowTo, columnTo - 2).equalsPawn("B")
+						|| this.citadels.contains(state.getBox(rowTo, columnTo - 2))) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo(), a.getColumnTo() - 1));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo, columnTo - 1));
 				}
 			}
 		}
 		return state;
 	}
 
-	private State checkCaptureBlackKingRight(State state, Action a) {
+	private State checkCaptureBlackKingRight(State state, int rowTo, int columnTo) {
 		// ho il re sulla destra
-		if (a.getColumnTo() < state.getBoard().length - 2
-				&& (state.getPawn(a.getRowTo(), a.getColumnTo() + 1).equalsPawn("K"))) {
+		if (columnTo < state.getBoardSize() - 2
+				&& (state.getPawn(rowTo, columnTo + 1).equalsPawn("K"))) {
 			// re sul trono
-			if (state.getBox(a.getRowTo(), a.getColumnTo() + 1).equals("e5")) {
+			if (state.getBox(rowTo, columnTo + 1).equals("e5")) {
 				if (state.getPawn(3, 4).equalsPawn("B") && state.getPawn(4, 5).equalsPawn("B")
 						&& state.getPawn(5, 4).equalsPawn("B")) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo(), a.getColumnTo() + 1));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo, columnTo + 1));
 				}
 			}
 			// re adiacente al trono
-			if (state.getBox(a.getRowTo(), a.getColumnTo() + 1).equals("e4")) {
+			if (state.getBox(rowTo, columnTo + 1).equals("e4")) {
 				if (state.getPawn(2, 4).equalsPawn("B") && state.getPawn(3, 5).equalsPawn("B")) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo(), a.getColumnTo() + 1));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo, columnTo + 1));
 				}
 			}
-			if (state.getBox(a.getRowTo(), a.getColumnTo() + 1).equals("e6")) {
+			if (state.getBox(rowTo, columnTo + 1).equals("e6")) {
 				if (state.getPawn(5, 5).equalsPawn("B") && state.getPawn(6, 4).equalsPawn("B")) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo(), a.getColumnTo() + 1));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo, columnTo + 1));
 				}
 			}
-			if (state.getBox(a.getRowTo(), a.getColumnTo() + 1).equals("d5")) {
+			if (state.getBox(rowTo, columnTo + 1).equals("d5")) {
 				if (state.getPawn(3, 3).equalsPawn("B") && state.getPawn(5, 3).equalsPawn("B")) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo(), a.getColumnTo() + 1));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo, columnTo + 1));
 				}
 			}
 			// sono fuori dalle zone del trono
-			if (!state.getBox(a.getRowTo(), a.getColumnTo() + 1).equals("d5")
-					&& !state.getBox(a.getRowTo(), a.getColumnTo() + 1).equals("e6")
-					&& !state.getBox(a.getRowTo(), a.getColumnTo() + 1).equals("e4")
-					&& !state.getBox(a.getRowTo(), a.getColumnTo() + 1).equals("e5")) {
-				if (state.getPawn(a.getRowTo(), a.getColumnTo() + 2).equalsPawn("B")
-						|| this.citadels.contains(state.getBox(a.getRowTo(), a.getColumnTo() + 2))) {
+			if (!state.getBox(rowTo, columnTo + 1).equals("d5")
+					&& !state.getBox(rowTo, columnTo + 1).equals("e6")
+					&& !state.getBox(rowTo, columnTo + 1).equals("e4")
+					&& !state.getBox(rowTo, columnTo + 1).equals("e5")) {
+				if (state.getPawn(rowTo, columnTo + 2).equalsPawn("B")
+						|| this.citadels.contains(state.getBox(rowTo, columnTo + 2))) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo(), a.getColumnTo() + 1));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo, columnTo + 1));
 				}
 			}
 		}
 		return state;
 	}
 
-	private State checkCaptureBlackKingDown(State state, Action a) {
+	private State checkCaptureBlackKingDown(State state, int rowTo, int columnTo) {
 		// ho il re sotto
-		if (a.getRowTo() < state.getBoard().length - 2
-				&& state.getPawn(a.getRowTo() + 1, a.getColumnTo()).equalsPawn("K")) {
+		if (rowTo < state.getBoardSize() - 2
+				&& state.getPawn(rowTo + 1, columnTo).equalsPawn("K")) {
 			//System.out.println("Ho il re sotto");
 			// re sul trono
-			if (state.getBox(a.getRowTo() + 1, a.getColumnTo()).equals("e5")) {
+			if (state.getBox(rowTo + 1, columnTo).equals("e5")) {
 				if (state.getPawn(5, 4).equalsPawn("B") && state.getPawn(4, 5).equalsPawn("B")
 						&& state.getPawn(4, 3).equalsPawn("B")) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo() + 1, a.getColumnTo()));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo + 1, columnTo));
 				}
 			}
 			// re adiacente al trono
-			if (state.getBox(a.getRowTo() + 1, a.getColumnTo()).equals("e4")) {
+			if (state.getBox(rowTo + 1, columnTo).equals("e4")) {
 				if (state.getPawn(3, 3).equalsPawn("B") && state.getPawn(3, 5).equalsPawn("B")) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo() + 1, a.getColumnTo()));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo + 1, columnTo));
 				}
 			}
-			if (state.getBox(a.getRowTo() + 1, a.getColumnTo()).equals("d5")) {
+			if (state.getBox(rowTo + 1, columnTo).equals("d5")) {
 				if (state.getPawn(4, 2).equalsPawn("B") && state.getPawn(5, 3).equalsPawn("B")) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo() + 1, a.getColumnTo()));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo + 1, columnTo));
 				}
 			}
-			if (state.getBox(a.getRowTo() + 1, a.getColumnTo()).equals("f5")) {
+			if (state.getBox(rowTo + 1, columnTo).equals("f5")) {
 				if (state.getPawn(4, 6).equalsPawn("B") && state.getPawn(5, 5).equalsPawn("B")) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo() + 1, a.getColumnTo()));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo + 1, columnTo));
 				}
 			}
 			// sono fuori dalle zone del trono
-			if (!state.getBox(a.getRowTo() + 1, a.getColumnTo()).equals("d5")
-					&& !state.getBox(a.getRowTo() + 1, a.getColumnTo()).equals("e4")
-					&& !state.getBox(a.getRowTo() + 1, a.getColumnTo()).equals("f5")
-					&& !state.getBox(a.getRowTo() + 1, a.getColumnTo()).equals("e5")) {
-				if (state.getPawn(a.getRowTo() + 2, a.getColumnTo()).equalsPawn("B")
-						|| this.citadels.contains(state.getBox(a.getRowTo() + 2, a.getColumnTo()))) {
+			if (!state.getBox(rowTo + 1, columnTo).equals("d5")
+					&& !state.getBox(rowTo + 1, columnTo).equals("e4")
+					&& !state.getBox(rowTo + 1, columnTo).equals("f5")
+					&& !state.getBox(rowTo + 1, columnTo).equals("e5")) {
+				if (state.getPawn(rowTo + 2, columnTo).equalsPawn("B")
+						|| this.citadels.contains(state.getBox(rowTo + 2, columnTo))) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo() + 1, a.getColumnTo()));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo + 1, columnTo));
 				}
 			}
 		}
 		return state;
 	}
 
-	private State checkCaptureBlackKingUp(State state, Action a) {
+	private State checkCaptureBlackKingUp(State state, int rowTo, int columnTo) {
 		// ho il re sopra
-		if (a.getRowTo() > 1 && state.getPawn(a.getRowTo() - 1, a.getColumnTo()).equalsPawn("K")) {
+		if (rowTo > 1 && state.getPawn(rowTo - 1, columnTo).equalsPawn("K")) {
 			// re sul trono
-			if (state.getBox(a.getRowTo() - 1, a.getColumnTo()).equals("e5")) {
+			if (state.getBox(rowTo - 1, columnTo).equals("e5")) {
 				if (state.getPawn(3, 4).equalsPawn("B") && state.getPawn(4, 5).equalsPawn("B")
 						&& state.getPawn(4, 3).equalsPawn("B")) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo() - 1, a.getColumnTo()));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo - 1, columnTo));
 				}
 			}
 			// re adiacente al trono
-			if (state.getBox(a.getRowTo() - 1, a.getColumnTo()).equals("e6")) {
+			if (state.getBox(rowTo - 1, columnTo).equals("e6")) {
 				if (state.getPawn(5, 3).equalsPawn("B") && state.getPawn(5, 5).equalsPawn("B")) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo() - 1, a.getColumnTo()));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo - 1, columnTo));
 				}
 			}
-			if (state.getBox(a.getRowTo() - 1, a.getColumnTo()).equals("d5")) {
+			if (state.getBox(rowTo - 1, columnTo).equals("d5")) {
 				if (state.getPawn(4, 2).equalsPawn("B") && state.getPawn(3, 3).equalsPawn("B")) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo() - 1, a.getColumnTo()));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo - 1, columnTo));
 				}
 			}
-			if (state.getBox(a.getRowTo() - 1, a.getColumnTo()).equals("f5")) {
+			if (state.getBox(rowTo - 1, columnTo).equals("f5")) {
 				if (state.getPawn(4, 6).equalsPawn("B") && state.getPawn(3, 5).equalsPawn("B")) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo() - 1, a.getColumnTo()));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo - 1, columnTo));
 				}
 			}
 			// sono fuori dalle zone del trono
-			if (!state.getBox(a.getRowTo() - 1, a.getColumnTo()).equals("d5")
-					&& !state.getBox(a.getRowTo() - 1, a.getColumnTo()).equals("e6")
-					&& !state.getBox(a.getRowTo() - 1, a.getColumnTo()).equals("f5")
-					&& !state.getBox(a.getRowTo() - 1, a.getColumnTo()).equals("e5")) {
-				if (state.getPawn(a.getRowTo() - 2, a.getColumnTo()).equalsPawn("B")
-						|| this.citadels.contains(state.getBox(a.getRowTo() - 2, a.getColumnTo()))) {
+			if (!state.getBox(rowTo - 1, columnTo).equals("d5")
+					&& !state.getBox(rowTo - 1, columnTo).equals("e6")
+					&& !state.getBox(rowTo - 1, columnTo).equals("f5")
+					&& !state.getBox(rowTo - 1, columnTo).equals("e5")) {
+				if (state.getPawn(rowTo - 2, columnTo).equalsPawn("B")
+						|| this.citadels.contains(state.getBox(rowTo - 2, columnTo))) {
 					state.setTurn(State.Turn.BLACKWIN);
 					this.loggGame
-							.fine("Nero vince con re catturato in: " + state.getBox(a.getRowTo() - 1, a.getColumnTo()));
+							.fine("Nero vince con re catturato in: " + state.getBox(rowTo - 1, columnTo));
 				}
 			}
 		}
 		return state;
 	}
 
-	private State checkCaptureBlackPawnRight(State state, Action a) {
+	private State checkCaptureBlackPawnRight(State state, int rowTo, int columnTo) {
 		// mangio a destra
-		if (a.getColumnTo() < state.getBoard().length - 2
-				&& state.getPawn(a.getRowTo(), a.getColumnTo() + 1).equalsPawn("W")) {
-			if (state.getPawn(a.getRowTo(), a.getColumnTo() + 2).equalsPawn("B")) {
-				state.removePawn(a.getRowTo(), a.getColumnTo() + 1);
+		if (columnTo < state.getBoardSize() - 2
+				&& state.getPawn(rowTo, columnTo + 1).equalsPawn("W")) {
+			if (state.getPawn(rowTo, columnTo + 2).equalsPawn("B")) {
+				state.removePawn(rowTo, columnTo + 1);
 				this.movesWithutCapturing = -1;
-				this.loggGame.fine("Pedina bianca rimossa in: " + state.getBox(a.getRowTo(), a.getColumnTo() + 1));
+				if (!this.silent) {
+					this.loggGame.fine("Pedina bianca rimossa in: " + state.getBox(rowTo, columnTo + 1));
+				}
 			}
-			if (state.getPawn(a.getRowTo(), a.getColumnTo() + 2).equalsPawn("T")) {
-				state.removePawn(a.getRowTo(), a.getColumnTo() + 1);
+			if (state.getPawn(rowTo, columnTo + 2).equalsPawn("T")) {
+				state.removePawn(rowTo, columnTo + 1);
 				this.movesWithutCapturing = -1;
-				this.loggGame.fine("Pedina bianca rimossa in: " + state.getBox(a.getRowTo(), a.getColumnTo() + 1));
+				if (!this.silent) {
+					this.loggGame.fine("Pedina bianca rimossa in: " + state.getBox(rowTo, columnTo + 1));
+				}
 			}
-			if (this.citadels.contains(state.getBox(a.getRowTo(), a.getColumnTo() + 2))) {
-				state.removePawn(a.getRowTo(), a.getColumnTo() + 1);
+			if (this.citadels.contains(state.getBox(rowTo, columnTo + 2))) {
+				state.removePawn(rowTo, columnTo + 1);
 				this.movesWithutCapturing = -1;
-				this.loggGame.fine("Pedina bianca rimossa in: " + state.getBox(a.getRowTo(), a.getColumnTo() + 1));
+				if (!this.silent) {
+					this.loggGame.fine("Pedina bianca rimossa in: " + state.getBox(rowTo, columnTo + 1));
+				}
 			}
-			if (state.getBox(a.getRowTo(), a.getColumnTo() + 2).equals("e5")) {
-				state.removePawn(a.getRowTo(), a.getColumnTo() + 1);
+			if (state.getBox(rowTo, columnTo + 2).equals("e5")) {
+				state.removePawn(rowTo, columnTo + 1);
 				this.movesWithutCapturing = -1;
-				this.loggGame.fine("Pedina bianca rimossa in: " + state.getBox(a.getRowTo(), a.getColumnTo() + 1));
+				if (!this.silent) {
+					this.loggGame.fine("Pedina bianca rimossa in: " + state.getBox(rowTo, columnTo + 1));
+				}
 			}
 
 		}
@@ -630,80 +768,85 @@ public class GameAshtonTablut implements Game {
 		return state;
 	}
 
-	private State checkCaptureBlackPawnLeft(State state, Action a) {
+	private State checkCaptureBlackPawnLeft(State state, int rowTo, int columnTo) {
 		// mangio a sinistra
-		if (a.getColumnTo() > 1 && state.getPawn(a.getRowTo(), a.getColumnTo() - 1).equalsPawn("W")
-				&& (state.getPawn(a.getRowTo(), a.getColumnTo() - 2).equalsPawn("B")
-						|| state.getPawn(a.getRowTo(), a.getColumnTo() - 2).equalsPawn("T")
-						|| this.citadels.contains(state.getBox(a.getRowTo(), a.getColumnTo() - 2))
-						|| (state.getBox(a.getRowTo(), a.getColumnTo() - 2).equals("e5")))) {
-			state.removePawn(a.getRowTo(), a.getColumnTo() - 1);
+		if (columnTo > 1 && state.getPawn(rowTo, columnTo - 1).equalsPawn("W")
+				&& (state.getPawn(rowTo, columnTo - 2).equalsPawn("B")
+						|| state.getPawn(rowTo, columnTo - 2).equalsPawn("T")
+						|| this.citadels.contains(state.getBox(rowTo, columnTo - 2))
+						|| (state.getBox(rowTo, columnTo - 2).equals("e5")))) {
+			state.removePawn(rowTo, columnTo - 1);
 			this.movesWithutCapturing = -1;
-			this.loggGame.fine("Pedina bianca rimossa in: " + state.getBox(a.getRowTo(), a.getColumnTo() - 1));
+			if (!this.silent) {
+				this.loggGame.fine("Pedina bianca rimossa in: " + state.getBox(rowTo, columnTo - 1));
+			}
 		}
 		return state;
 	}
 
-	private State checkCaptureBlackPawnUp(State state, Action a) {
+	private State checkCaptureBlackPawnUp(State state, int rowTo, int columnTo) {
 		// controllo se mangio sopra
-		if (a.getRowTo() > 1 && state.getPawn(a.getRowTo() - 1, a.getColumnTo()).equalsPawn("W")
-				&& (state.getPawn(a.getRowTo() - 2, a.getColumnTo()).equalsPawn("B")
-						|| state.getPawn(a.getRowTo() - 2, a.getColumnTo()).equalsPawn("T")
-						|| this.citadels.contains(state.getBox(a.getRowTo() - 2, a.getColumnTo()))
-						|| (state.getBox(a.getRowTo() - 2, a.getColumnTo()).equals("e5")))) {
-			state.removePawn(a.getRowTo() - 1, a.getColumnTo());
+		if (rowTo > 1 && state.getPawn(rowTo - 1, columnTo).equalsPawn("W")
+				&& (state.getPawn(rowTo - 2, columnTo).equalsPawn("B")
+						|| state.getPawn(rowTo - 2, columnTo).equalsPawn("T")
+						|| this.citadels.contains(state.getBox(rowTo - 2, columnTo))
+						|| (state.getBox(rowTo - 2, columnTo).equals("e5")))) {
+			state.removePawn(rowTo - 1, columnTo);
 			this.movesWithutCapturing = -1;
-			this.loggGame.fine("Pedina bianca rimossa in: " + state.getBox(a.getRowTo() - 1, a.getColumnTo()));
+			if (!this.silent) {
+				this.loggGame.fine("Pedina bianca rimossa in: " + state.getBox(rowTo - 1, columnTo));
+			}
 		}
 		return state;
 	}
 
-	private State checkCaptureBlackPawnDown(State state, Action a) {
+	private State checkCaptureBlackPawnDown(State state, int rowTo, int columnTo) {
 		// controllo se mangio sotto
-		if (a.getRowTo() < state.getBoard().length - 2
-				&& state.getPawn(a.getRowTo() + 1, a.getColumnTo()).equalsPawn("W")
-				&& (state.getPawn(a.getRowTo() + 2, a.getColumnTo()).equalsPawn("B")
-						|| state.getPawn(a.getRowTo() + 2, a.getColumnTo()).equalsPawn("T")
-						|| this.citadels.contains(state.getBox(a.getRowTo() + 2, a.getColumnTo()))
-						|| (state.getBox(a.getRowTo() + 2, a.getColumnTo()).equals("e5")))) {
-			state.removePawn(a.getRowTo() + 1, a.getColumnTo());
+		if (rowTo < state.getBoardSize() - 2
+				&& state.getPawn(rowTo + 1, columnTo).equalsPawn("W")
+				&& (state.getPawn(rowTo + 2, columnTo).equalsPawn("B")
+						|| state.getPawn(rowTo + 2, columnTo).equalsPawn("T")
+						|| this.citadels.contains(state.getBox(rowTo + 2, columnTo))
+						|| (state.getBox(rowTo + 2, columnTo).equals("e5")))) {
+			state.removePawn(rowTo + 1, columnTo);
 			this.movesWithutCapturing = -1;
-			this.loggGame.fine("Pedina bianca rimossa in: " + state.getBox(a.getRowTo() + 1, a.getColumnTo()));
+			if (!this.silent) {
+				this.loggGame.fine("Pedina bianca rimossa in: " + state.getBox(rowTo + 1, columnTo));
+			}
 		}
 		return state;
 	}
 
-	private State checkCaptureBlack(State state, Action a) {
+	private State checkCaptureBlack(State state, int rowTo, int columnTo) {
 
-		this.checkCaptureBlackPawnRight(state, a);
-		this.checkCaptureBlackPawnLeft(state, a);
-		this.checkCaptureBlackPawnUp(state, a);
-		this.checkCaptureBlackPawnDown(state, a);
-		this.checkCaptureBlackKingRight(state, a);
-		this.checkCaptureBlackKingLeft(state, a);
-		this.checkCaptureBlackKingDown(state, a);
-		this.checkCaptureBlackKingUp(state, a);
+		this.checkCaptureBlackPawnRight(state, rowTo, columnTo);
+		this.checkCaptureBlackPawnLeft(state, rowTo, columnTo);
+		this.checkCaptureBlackPawnUp(state, rowTo, columnTo);
+		this.checkCaptureBlackPawnDown(state, rowTo, columnTo);
+		this.checkCaptureBlackKingRight(state, rowTo, columnTo);
+		this.checkCaptureBlackKingLeft(state, rowTo, columnTo);
+		this.checkCaptureBlackKingDown(state, rowTo, columnTo);
+		this.checkCaptureBlackKingUp(state, rowTo, columnTo);
 
 		this.movesWithutCapturing++;
 		return state;
 	}
 
-	private State movePawn(State state, Action a) {
-		State.Pawn pawn = state.getPawn(a.getRowFrom(), a.getColumnFrom());
-		State.Pawn[][] newBoard = state.getBoard();
+	private State movePawn(State state, int rowFrom, int columnFrom, int rowTo, int columnTo) {
+		State.Pawn pawn = state.getPawn(rowFrom, columnFrom);
 		// State newState = new State();
-		this.loggGame.fine("Movimento pedina");
+		if (!this.silent) {
+			this.loggGame.fine("Movimento pedina");
+		}
 		// libero il trono o una casella qualunque
-		if (a.getColumnFrom() == 4 && a.getRowFrom() == 4) {
-			newBoard[a.getRowFrom()][a.getColumnFrom()] = State.Pawn.THRONE;
+		if (columnFrom == 4 && rowFrom == 4) {
+			state.setPawn(rowFrom, columnFrom, State.Pawn.THRONE);
 		} else {
-			newBoard[a.getRowFrom()][a.getColumnFrom()] = State.Pawn.EMPTY;
+			state.setPawn(rowFrom, columnFrom, State.Pawn.EMPTY);
 		}
 
 		// metto nel nuovo tabellone la pedina mossa
-		newBoard[a.getRowTo()][a.getColumnTo()] = pawn;
-		// aggiorno il tabellone
-		state.setBoard(newBoard);
+		state.setPawn(rowTo, columnTo, pawn);
 		// cambio il turno
 		if (state.getTurn().equalsTurn(State.Turn.WHITE.toString())) {
 			state.setTurn(State.Turn.BLACK);
@@ -714,6 +857,9 @@ public class GameAshtonTablut implements Game {
 		return state;
 	}
 
+	/**
+	 * @return the file of the game log, null for a headless engine
+	 */
 	public File getGameLog() {
 		return gameLog;
 	}
@@ -735,7 +881,7 @@ public class GameAshtonTablut implements Game {
 		return cache_size;
 	}
 
-	public List<State> getDrawConditions() {
+	public RepetitionTable getDrawConditions() {
 		return drawConditions;
 	}
 
@@ -746,7 +892,12 @@ public class GameAshtonTablut implements Game {
 
 	@Override
 	public void endGame(State state) {
-		this.loggGame.fine("Stato:\n"+state.toString());
+		if (!this.silent) {
+			this.loggGame.fine("Stato:\n" + state.toString());
+			// the log is complete: release the file
+			this.loggGame.removeHandler(this.fh);
+			this.fh.close();
+		}
 	}
 
 
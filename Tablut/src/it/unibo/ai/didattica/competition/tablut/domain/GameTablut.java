@@ -30,9 +30,28 @@ public class GameTablut implements Game {
 	}
 	
 	public GameTablut(int moves) {
+		this(moves, true);
+	}
+
+	/**
+	 * @param moves
+	 *            moves without capturing before a draw
+	 * @param writeLog
+	 *            if false no game log is written and nothing is logged, e.g.
+	 *            for tools that apply millions of moves
+	 */
+	public GameTablut(int moves, boolean writeLog) {
 		super();
 		this.movesDraw = moves;
 		this.movesWithutCapturing=0;
+		if(!writeLog)
+		{
+			// private logger that discards everything, no handler is attached
+			this.loggGame = Logger.getAnonymousLogger();
+			this.loggGame.setUseParentHandlers(false);
+			this.loggGame.setLevel(Level.OFF);
+			return;
+		}
 		this.gameLogName = (new Date().getTime())+"_gameLog.txt";
 		this.setGameLog(new File(this.gameLogName));
 		fh = null;
@@ -200,7 +219,10 @@ public class GameTablut implements Game {
 			state = this.checkCaptureWhite(state, a);
 		}
 		
-		this.loggGame.fine("Stato: "+state.toString());
+		if(this.loggGame.isLoggable(Level.FINE))
+		{
+			this.loggGame.fine("Stato: "+state.toString());
+		}
 		
 		return state;
 	}
@@ -0,0 +1,134 @@
+package it.unibo.ai.didattica.competition.tablut.domain;
+
+/**
+ * Static helpers for moves packed in a single int, so that search code can
+ * generate, store and apply moves without creating {@link Action} objects.
+ * Boxes are numbered row by row on a 9-columns grid (row * 9 + column), which
+ * also covers the smaller boards.
+ *
+ * <pre>
+ * bits 0..6   box the pawn is moved from
+ * bits 7..13  box the pawn is moved to
+ * bit  14     1 if the move is played by black, 0 if by white
+ * </pre>
+ *
+ * {@link Action} is still used on the wire: convert with
+ * {@link #fromAction(Action)} and {@link #toAction(int)}.
+ *
+ */
+public final class Move {
+
+	/**
+	 * Value used for "no move"; it never matches a valid encoding
+	 */
+	public static final int NONE = -1;
+
+	private static final int COLUMNS = 9;
+	private static final int BOX_BITS = 7;
+	private static final int BOX_MASK = (1 << BOX_BITS) - 1;
+	private static final int BLACK_BIT = 1 << (2 * BOX_BITS);
+
+	/**
+	 * Names of the boxes ("a1".."i9") indexed by box number
+	 */
+	private static final String[] BOX_NAMES = new String[COLUMNS * COLUMNS];
+
+	static {
+		for (int row = 0; row < COLUMNS; row++) {
+			for (int column = 0; column < COLUMNS; column++) {
+				BOX_NAMES[row * COLUMNS + column] = (char) (column + 97) + "" + (row + 1);
+			}
+		}
+	}
+
+	private Move() {
+	}
+
+	/**
+	 * @return the number of the box in the given row and column
+	 */
+	public static int box(int row, int column) {
+		return row * COLUMNS + column;
+	}
+
+	public static int row(int box) {
+		return box / COLUMNS;
+	}
+
+	public static int column(int box) {
+		return box % COLUMNS;
+	}
+
+	/**
+	 * @return the name of the box ("a1".."i9"), without allocating a new string
+	 */
+	public static String boxName(int row, int column) {
+		return BOX_NAMES[row * COLUMNS + column];
+	}
+
+	/**
+	 * @param from
+	 *            the box the pawn is moved from
+	 * @param to
+	 *            the box the pawn is moved to
+	 * @param turn
+	 *            the player that moves, WHITE or BLACK
+	 * @return the packed move
+	 */
+	public static int encode(int from, int to, State.Turn turn) {
+		return from | (to << BOX_BITS) | (turn == State.Turn.BLACK ? BLACK_BIT : 0);
+	}
+
+	public static int encode(int rowFrom, int columnFrom, int rowTo, int columnTo, State.Turn turn) {
+		return encode(box(rowFrom, columnFrom), box(rowTo, columnTo), turn);
+	}
+
+	public static int getFrom(int move) {
+		return move & BOX_MASK;
+	}
+
+	public static int getTo(int move) {
+		return (move >>> BOX_BITS) & BOX_MASK;
+	}
+
+	public static int getRowFrom(int move) {
+		return getFrom(move) / COLUMNS;
+	}
+
+	public static int getColumnFrom(int move) {
+		return getFrom(move) % COLUMNS;
+	}
+
+	public static int getRowTo(int move) {
+		return getTo(move) / COLUMNS;
+	}
+
+	public static int getColumnTo(int move) {
+		return getTo(move) % COLUMNS;
+	}
+
+	public static State.Turn getTurn(int move) {
+		return (move & BLACK_BIT) != 0 ? State.Turn.BLACK : State.Turn.WHITE;
+	}
+
+	/**
+	 * @return the packed form of an action received from (or sent to) the
+	 *         network
+	 */
+	public static int fromAction(Action a) {
+		return encode(a.getRowFrom(), a.getColumnFrom(), a.getRowTo(), a.getColumnTo(), a.getTurn());
+	}
+
+	/**
+	 * @return the action to be sent to the server for a packed move
+	 */
+	public static Action toAction(int move) {
+		return new Action(move);
+	}
+
+	public static String toString(int move) {
+		return "Turn: " + getTurn(move) + " " + "Pawn from " + BOX_NAMES[getFrom(move)] + " to "
+				+ BOX_NAMES[getTo(move)];
+	}
+
+}
@@ -0,0 +1,194 @@
+package it.unibo.ai.didattica.competition.tablut.domain;
+
+import java.util.Arrays;
+
+/**
+ * Legal move generator for the Ashton rules on the 9x9 board. The moves are
+ * written as packed ints (see {@link Move}) in a buffer provided by the
+ * caller, so that search code can generate moves without allocating.
+ *
+ * The generated moves are exactly the ones accepted by
+ * {@link GameAshtonTablut#checkMove(State, Action)}:
+ * <ul>
+ * <li>pawns move orthogonally over empty boxes only, and nobody crosses or
+ * reaches the throne;</li>
+ * <li>a pawn outside the citadels cannot cross or reach a citadel;</li>
+ * <li>a black pawn still inside a citadel can move through citadel boxes,
+ * and can stop in a citadel box at most 5 boxes away.</li>
+ * </ul>
+ * The boxes reachable in every direction and the citadels are precomputed
+ * as masks over the box numbers (row * 9 + column).
+ *
+ */
+public final class MoveGenerator {
+
+	/**
+	 * Upper bound of the number of moves of a position: 16 pawns with at
+	 * most 16 destinations each
+	 */
+	public static final int MAX_MOVES = 16 * 16;
+
+	private static final int SIZE = 9;
+	private static final int BOXES = SIZE * SIZE;
+	private static final int THRONE_BOX = 4 * SIZE + 4;
+
+	/**
+	 * Maximum distance of a citadel reached from another citadel
+	 */
+	private static final int MAX_CITADEL_DISTANCE = 5;
+
+	private static final String[] CITADELS = { "a4", "a5", "a6", "b5", "d1", "e1", "f1", "e2", "i4", "i5", "i6",
+			"h5", "d9", "e9", "f9", "e8" };
+
+	/**
+	 * Citadels, boxes 0..63 and 64..80
+	 */
+	private static final long CITADEL_LOW;
+	private static final int CITADEL_HIGH;
+
+	/**
+	 * RAYS[box][direction]: the boxes met moving from box in the direction
+	 * (up, down, left, right), nearest first
+	 */
+	private static final int[][][] RAYS = new int[BOXES][4][];
+
+	static {
+		long low = 0;
+		int high = 0;
+		for (String citadel : CITADELS) {
+			int box = Move.box(Character.digit(citadel.charAt(1), 10) - 1, citadel.charAt(0) - 'a');
+			if (box < 64) {
+				low |= 1L << box;
+			} else {
+				high |= 1 << (box - 64);
+			}
+		}
+		CITADEL_LOW = low;
+		CITADEL_HIGH = high;
+
+		int[] dRow = { -1, 1, 0, 0 };
+		int[] dColumn = { 0, 0, -1, 1 };
+		for (int box = 0; box < BOXES; box++) {
+			for (int d = 0; d < 4; d++) {
+				int length = 0;
+				int row = Move.row(box) + dRow[d];
+				int column = Move.column(box) + dColumn[d];
+				int[] ray = new int[SIZE - 1];
+				while (row >= 0 && row < SIZE && column >= 0 && column < SIZE) {
+					ray[length++] = Move.box(row, column);
+					row += dRow[d];
+					column += dColumn[d];
+				}
+				RAYS[box][d] = Arrays.copyOf(ray, length);
+			}
+		}
+	}
+
+	private MoveGenerator() {
+	}
+
+	/**
+	 * @return true if the box (row * 9 + column) is a citadel
+	 */
+	public static boolean isCitadel(int box) {
+		return isSet(CITADEL_LOW, CITADEL_HIGH, box);
+	}
+
+	public static boolean isCitadel(int row, int column) {
+		return isCitadel(Move.box(row, column));
+	}
+
+	private static boolean isSet(long low, int high, int box) {
+		return box < 64 ? (low & (1L << box)) != 0 : (high & (1 << (box - 64))) != 0;
+	}
+
+	/**
+	 * Writes the legal moves of the player to move in the buffer
+	 *
+	 * @param state
+	 *            a 9x9 state, it is not modified
+	 * @param moves
+	 *            the buffer, at least {@link #MAX_MOVES} long
+	 * @return the number of moves written, 0 if the game is over
+	 */
+	public static int generate(State state, int[] moves) {
+		if (state.getBoardSize() != SIZE) {
+			throw new IllegalArgumentException("MoveGenerator supports only 9x9 boards");
+		}
+		State.Turn turn = state.getTurn();
+		if (turn != State.Turn.WHITE && turn != State.Turn.BLACK) {
+			return 0;
+		}
+
+		long ownLow;
+		int ownHigh;
+		long occupiedLow;
+		int occupiedHigh;
+		if (state instanceof BitboardState) {
+			BitboardState b = (BitboardState) state;
+			int king = b.getKingBox();
+			long kingLow = king >= 0 && king < 64 ? 1L << king : 0;
+			int kingHigh = king >= 64 ? 1 << (king - 64) : 0;
+			occupiedLow = b.getBlackLow() | b.getWhiteLow() | kingLow;
+			occupiedHigh = b.getBlackHigh() | b.getWhiteHigh() | kingHigh;
+			if (turn == State.Turn.WHITE) {
+				ownLow = b.getWhiteLow() | kingLow;
+				ownHigh = b.getWhiteHigh() | kingHigh;
+			} else {
+				ownLow = b.getBlackLow();
+				ownHigh = b.getBlackHigh();
+			}
+		} else {
+			ownLow = 0;
+			ownHigh = 0;
+			occupiedLow = 0;
+			occupiedHigh = 0;
+			for (int box = 0; box < BOXES; box++) {
+				State.Pawn pawn = state.getPawn(Move.row(box), Move.column(box));
+				if (pawn == State.Pawn.EMPTY || pawn == State.Pawn.THRONE) {
+					continue;
+				}
+				boolean own = turn == State.Turn.WHITE ? pawn != State.Pawn.BLACK : pawn == State.Pawn.BLACK;
+				if (box < 64) {
+					occupiedLow |= 1L << box;
+					if (own)
+						ownLow |= 1L << box;
+				} else {
+					occupiedHigh |= 1 << (box - 64);
+					if (own)
+						ownHigh |= 1 << (box - 64);
+				}
+			}
+		}
+		// nobody crosses or reaches the throne, empty or not
+		occupiedLow |= 1L << THRONE_BOX;
+
+		int n = 0;
+		for (int from = 0; from < BOXES; from++) {
+			if (!isSet(ownLow, ownHigh, from)) {
+				continue;
+			}
+			boolean fromCitadel = isCitadel(from);
+			for (int[] ray : RAYS[from]) {
+				for (int i = 0; i < ray.length; i++) {
+					int to = ray[i];
+					if (isSet(occupiedLow, occupiedHigh, to)) {
+						break;
+					}
+					if (isCitadel(to)) {
+						if (!fromCitadel) {
+							break;
+						}
+						if (i + 1 > MAX_CITADEL_DISTANCE) {
+							// can still cross it, but not stop there
+							continue;
+						}
+					}
+					moves[n++] = Move.encode(from, to, turn);
+				}
+			}
+		}
+		return n;
+	}
+
+}
@@ -0,0 +1,168 @@
+package it.unibo.ai.didattica.competition.tablut.domain;
+
+import java.util.Arrays;
+
+/**
+ * Cache of the positions reached since the last capture, used to detect draws
+ * by repetition. Positions are stored by Zobrist key (see
+ * {@link State#getZobristKey()}) in a multiset, so both counting the
+ * occurrences of a position and adding a new one take constant time.
+ *
+ * When the cache is bounded, the insertion order is kept in a ring buffer and
+ * the oldest position is dropped when a new one does not fit. To keep the
+ * draw rule of the game unchanged, up to cacheSize + 1 positions are kept: the
+ * oldest one is dropped only when the cache already holds more than cacheSize
+ * positions.
+ *
+ */
+public class RepetitionTable {
+
+	private static final int INITIAL_SLOTS = 64;
+
+	/**
+	 * Maximum number of positions kept, negative means infinite
+	 */
+	private final int capacity;
+
+	/**
+	 * Positions in insertion order (only for bounded caches)
+	 */
+	private final long[] ring;
+	private int oldest;
+	private int size;
+
+	/**
+	 * Open addressing multiset: a slot is free when its count is 0
+	 */
+	private long[] keys;
+	private int[] counts;
+	private int distinct;
+
+	/**
+	 * @param cacheSize
+	 *            the cache_size of the game, negative means infinite
+	 */
+	public RepetitionTable(int cacheSize) {
+		this.capacity = cacheSize < 0 ? -1 : cacheSize + 1;
+		this.ring = cacheSize < 0 ? null : new long[this.capacity];
+		int slots = INITIAL_SLOTS;
+		while (this.capacity > 0 && slots < 2 * this.capacity) {
+			slots <<= 1;
+		}
+		this.keys = new long[slots];
+		this.counts = new int[slots];
+	}
+
+	/**
+	 * @return how many times the position with the given key is in the cache
+	 */
+	public int count(long key) {
+		int mask = this.keys.length - 1;
+		for (int i = slot(key, mask); this.counts[i] != 0; i = (i + 1) & mask) {
+			if (this.keys[i] == key) {
+				return this.counts[i];
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Adds a position, dropping the oldest one if the cache is full
+	 */
+	public void add(long key) {
+		if (this.ring != null) {
+			if (this.size == this.capacity) {
+				this.decrement(this.ring[this.oldest]);
+				this.ring[this.oldest] = key;
+				this.oldest = (this.oldest + 1) % this.capacity;
+			} else {
+				this.ring[(this.oldest + this.size) % this.capacity] = key;
+				this.size++;
+			}
+		} else {
+			this.size++;
+		}
+		this.increment(key);
+	}
+
+	/**
+	 * Empties the cache, e.g. after a capture
+	 */
+	public void clear() {
+		Arrays.fill(this.counts, 0);
+		this.distinct = 0;
+		this.oldest = 0;
+		this.size = 0;
+	}
+
+	/**
+	 * @return the number of positions in the cache
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	private static int slot(long key, int mask) {
+		return (int) (key ^ (key >>> 32)) & mask;
+	}
+
+	private void increment(long key) {
+		int mask = this.keys.length - 1;
+		int i = slot(key, mask);
+		while (this.counts[i] != 0) {
+			if (this.keys[i] == key) {
+				this.counts[i]++;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		this.keys[i] = key;
+		this.counts[i] = 1;
+		this.distinct++;
+		if (2 * this.distinct > this.keys.length) {
+			this.grow();
+		}
+	}
+
+	private void decrement(long key) {
+		int mask = this.keys.length - 1;
+		int i = slot(key, mask);
+		while (this.keys[i] != key || this.counts[i] == 0) {
+			i = (i + 1) & mask;
+		}
+		if (--this.counts[i] > 0) {
+			return;
+		}
+		this.distinct--;
+		// backward shift deletion keeps the probe sequences intact
+		int free = i;
+		for (int j = (i + 1) & mask; this.counts[j] != 0; j = (j + 1) & mask) {
+			int home = slot(this.keys[j], mask);
+			if (((j - home) & mask) >= ((j - free) & mask)) {
+				this.keys[free] = this.keys[j];
+				this.counts[free] = this.counts[j];
+				this.counts[j] = 0;
+				free = j;
+			}
+		}
+	}
+
+	private void grow() {
+		long[] oldKeys = this.keys;
+		int[] oldCounts = this.counts;
+		this.keys = new long[oldKeys.length * 2];
+		this.counts = new int[oldCounts.length * 2];
+		int mask = this.keys.length - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldCounts[i] != 0) {
+				int j = slot(oldKeys[i], mask);
+				while (this.counts[j] != 0) {
+					j = (j + 1) & mask;
+				}
+				this.keys[j] = oldKeys[i];
+				this.counts[j] = oldCounts[i];
+			}
+		}
+	}
+
+}
@@ -89,11 +89,18 @@ public abstract class State {
 		return board;
 	}
 
+	/**
+	 * @return the number of rows (and columns) of the square board
+	 */
+	public int getBoardSize() {
+		return this.board.length;
+	}
+
 	public String boardString() {
 		StringBuffer result = new StringBuffer();
-		for (int i = 0; i < this.board.length; i++) {
-			for (int j = 0; j < this.board.length; j++) {
-				result.append(this.board[i][j].toString());
+		for (int i = 0; i < this.getBoardSize(); i++) {
+			for (int j = 0; j < this.getBoardSize(); j++) {
+				result.append(this.getPawn(i, j).toString());
 				if (j == 8) {
 					result.append("\n");
 				}
@@ -156,6 +163,20 @@ public abstract class State {
 		this.board[row][column] = Pawn.EMPTY;
 	}
 
+	/**
+	 * this function puts a pawn inside a specific box on the board
+	 * 
+	 * @param row
+	 *            represents the row of the specific box
+	 * @param column
+	 *            represents the column of the specific box
+	 * @param pawn
+	 *            the new content of the box
+	 */
+	public void setPawn(int row, int column, Pawn pawn) {
+		this.board[row][column] = pawn;
+	}
+
 	public void setBoard(Pawn[][] board) {
 		this.board = board;
 	}
@@ -206,6 +227,18 @@ public abstract class State {
 		return result;
 	}
 	
+	/**
+	 * Returns the 64-bit Zobrist key of the position (board and turn), see
+	 * {@link Zobrist}. This implementation recomputes it from the board;
+	 * {@link BitboardState} keeps it updated on every move and capture and
+	 * returns it in constant time.
+	 * 
+	 * @return the Zobrist key of this state
+	 */
+	public long getZobristKey() {
+		return Zobrist.keyOf(this);
+	}
+
 	private static <T> int deepHashCode(T[][] matrix) {
 		int tmp[] = new int[matrix.length];
 		for (int i = 0; i < matrix.length; i++) {
@@ -215,6 +248,9 @@ public abstract class State {
 	}
 
 	public String getBox(int row, int column) {
+		if (row >= 0 && row < 9 && column >= 0 && column < 9) {
+			return Move.boxName(row, column);
+		}
 		String ret;
 		char col = (char) (column + 97);
 		ret = col + "" + (row + 1);
@@ -226,7 +262,7 @@ public abstract class State {
 		Constructor<? extends State> cons = null;
 		State result = null;
 		try {
-			cons = stateclass.getConstructor(stateclass);
+			cons = stateclass.getConstructor();
 			result = cons.newInstance(new Object[0]);
 		} catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException
 				| IllegalArgumentException | InvocationTargetException e) {
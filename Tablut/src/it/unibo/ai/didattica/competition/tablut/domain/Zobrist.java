@@ -0,0 +1,90 @@
+package it.unibo.ai.didattica.competition.tablut.domain;
+
+/**
+ * Zobrist keys for Tablut positions: one random 64-bit number for every
+ * (pawn, box) pair and one for every turn. The key of a position is the XOR
+ * of the numbers of the pawns on the board and of the turn, so moving or
+ * removing a pawn updates it with two XOR operations.
+ *
+ * The numbers are generated from a fixed seed, so keys are stable between
+ * runs and can be stored (e.g. in an opening book). Empty boxes and the empty
+ * throne do not contribute to the key, hence the same position has the same
+ * key whatever {@link State} implementation holds it.
+ *
+ */
+public final class Zobrist {
+
+	private static final int BOXES = 9 * 9;
+
+	private static final long[] WHITE_KEYS = new long[BOXES];
+	private static final long[] BLACK_KEYS = new long[BOXES];
+	private static final long[] KING_KEYS = new long[BOXES];
+	private static final long[] TURN_KEYS = new long[State.Turn.values().length];
+
+	static {
+		long seed = 0x7AB1D7L;
+		for (int i = 0; i < BOXES; i++) {
+			WHITE_KEYS[i] = seed = splitMix(seed);
+			BLACK_KEYS[i] = seed = splitMix(seed);
+			KING_KEYS[i] = seed = splitMix(seed);
+		}
+		for (int i = 0; i < TURN_KEYS.length; i++) {
+			TURN_KEYS[i] = seed = splitMix(seed);
+		}
+	}
+
+	private Zobrist() {
+	}
+
+	/**
+	 * SplitMix64 step: returns the next pseudo random number after x
+	 */
+	private static long splitMix(long x) {
+		long z = x + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * @param pawn
+	 *            the content of the box
+	 * @param box
+	 *            the box, numbered row * 9 + column
+	 * @return the number to XOR in (or out of) the key, 0 for empty boxes
+	 */
+	public static long pawnKey(State.Pawn pawn, int box) {
+		switch (pawn) {
+		case WHITE:
+			return WHITE_KEYS[box];
+		case BLACK:
+			return BLACK_KEYS[box];
+		case KING:
+			return KING_KEYS[box];
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * @return the number to XOR in (or out of) the key for a turn, 0 for null
+	 */
+	public static long turnKey(State.Turn turn) {
+		return turn == null ? 0 : TURN_KEYS[turn.ordinal()];
+	}
+
+	/**
+	 * Computes the key of a state from scratch
+	 */
+	public static long keyOf(State state) {
+		long key = turnKey(state.getTurn());
+		int size = state.getBoardSize();
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				key ^= pawnKey(state.getPawn(i, j), i * 9 + j);
+			}
+		}
+		return key;
+	}
+
+}
@@ -0,0 +1,225 @@
+package it.unibo.ai.didattica.competition.tablut.server;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Date;
+import java.util.logging.Logger;
+
+import com.google.gson.Gson;
+
+import it.unibo.ai.didattica.competition.tablut.domain.Action;
+import it.unibo.ai.didattica.competition.tablut.domain.Game;
+import it.unibo.ai.didattica.competition.tablut.domain.GameAshtonTablut;
+import it.unibo.ai.didattica.competition.tablut.domain.State;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+import it.unibo.ai.didattica.competition.tablut.domain.StateTablut;
+
+/**
+ * A match of the tournament server between two connected players, with its
+ * own state and its own {@link Game}. It follows the rules of
+ * {@link Server#run()}, but it never stops the process: a timeout, too many
+ * errors or a lost connection end only this match, with the defeat of the
+ * player at fault.
+ *
+ */
+public class Match implements Runnable {
+
+	/**
+	 * Number of hours that a game can last before the timeout
+	 */
+	private static final int HOUR_LIMIT = 10;
+
+	private final int id;
+	private final PlayerConnection white;
+	private final PlayerConnection black;
+	/**
+	 * Number of seconds allowed for a decision
+	 */
+	private final int time;
+	/**
+	 * Number of states kept in memory for the detection of a draw
+	 */
+	private final int cacheSize;
+	/**
+	 * Errors allowed
+	 */
+	private final int errors;
+	/**
+	 * Repeated positions allowed
+	 */
+	private final int repeated;
+	private final Logger loggSys;
+	private final Gson gson;
+
+	private int whiteErrors;
+	private int blackErrors;
+	/**
+	 * WHITEWIN, BLACKWIN or DRAW once the match is over
+	 */
+	private volatile Turn result;
+	/**
+	 * Turn of the last state sent to the players
+	 */
+	private Turn lastSent;
+
+	Match(int id, PlayerConnection white, PlayerConnection black, int time, int cacheSize, int errors, int repeated,
+			Logger loggSys) {
+		this.id = id;
+		this.white = white;
+		this.black = black;
+		this.time = time;
+		this.cacheSize = cacheSize;
+		this.errors = errors;
+		this.repeated = repeated;
+		this.loggSys = loggSys;
+		this.gson = new Gson();
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public String getWhiteName() {
+		return white.getName();
+	}
+
+	public String getBlackName() {
+		return black.getName();
+	}
+
+	/**
+	 * @return the result of the match, null while it is being played
+	 */
+	public Turn getResult() {
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "Match " + id + " (" + white.getName() + " vs " + black.getName() + ")";
+	}
+
+	public void run() {
+		try {
+			this.result = this.play();
+		} catch (RuntimeException e) {
+			// bug of the server, not of the players
+			loggSys.warning(this + ": " + e);
+			this.result = Turn.DRAW;
+		} finally {
+			white.close();
+			black.close();
+		}
+	}
+
+	private Turn play() {
+		State state = new StateTablut();
+		state.setTurn(State.Turn.WHITE);
+		// the states go to the game log only: the console is shared by all
+		// the matches
+		Game game = new GameAshtonTablut(state, repeated, cacheSize, "logs", white.getName(), black.getName(), false);
+		Date starttime = new Date();
+		loggSys.fine(this + " started");
+
+		PlayerConnection failed = this.send(state);
+		while (failed == null && !isOver(state.getTurn())) {
+			PlayerConnection current = state.getTurn() == Turn.WHITE ? white : black;
+
+			// RECEIVE MOVE
+			Action move;
+			try {
+				move = current.readAction(time, this.gson, state.getTurn());
+			} catch (SocketTimeoutException e) {
+				loggSys.warning(this + ": timeout! Player " + state.getTurn() + " lose!");
+				state.setTurn(defeat(current));
+				break;
+			} catch (IOException e) {
+				// disconnected, or not following the protocol
+				loggSys.warning(this + ": player " + state.getTurn() + " disconnected");
+				state.setTurn(defeat(current));
+				break;
+			} catch (RuntimeException e) {
+				// not even an action: an error, and the same state again
+				loggSys.fine(this + ": unreadable move from " + state.getTurn());
+				this.countError(current, state);
+				failed = this.send(state);
+				continue;
+			}
+
+			// APPLY MOVE
+			try {
+				move.setTurn(state.getTurn());
+				loggSys.fine(this + ": move received.\t" + move.toString());
+				state = game.checkMove(state, move);
+			} catch (Exception e) {
+				this.countError(current, state);
+			}
+
+			// GAME TOO LONG, TIMEOUT
+			long hoursoccurred = (new Date().getTime() - starttime.getTime()) / 60 / 60 / 1000;
+			if (hoursoccurred > HOUR_LIMIT) {
+				loggSys.warning(this + ": timeout of " + HOUR_LIMIT + " hours");
+				state.setTurn(Turn.DRAW);
+			}
+
+			// SEND STATE TO PLAYERS
+			failed = this.send(state);
+		}
+
+		if (failed != null && !isOver(state.getTurn())) {
+			loggSys.warning(this + ": cannot send the state to " + failed.getName());
+			state.setTurn(defeat(failed));
+		}
+		if (state.getTurn() != this.lastSent) {
+			// the match ended without a final state: tell the players anyway
+			this.send(state);
+		}
+		game.endGame(state);
+		loggSys.fine(this + " result: " + state.getTurn());
+		return state.getTurn();
+	}
+
+	/**
+	 * Increases the error counter of a player; too many errors lose the match
+	 */
+	private void countError(PlayerConnection current, State state) {
+		if (current == black && ++this.blackErrors > errors) {
+			loggSys.warning(this + ": too many errors for black player");
+			state.setTurn(Turn.WHITEWIN);
+		}
+		if (current == white && ++this.whiteErrors > errors) {
+			loggSys.warning(this + ": too many errors for white player");
+			state.setTurn(Turn.BLACKWIN);
+		}
+	}
+
+	/**
+	 * Sends the state to both players
+	 *
+	 * @return the player that could not receive it, null if both did
+	 */
+	private PlayerConnection send(State state) {
+		String theGson = white.isBinary() && black.isBinary() ? null : this.gson.toJson(state);
+		this.lastSent = state.getTurn();
+		PlayerConnection failed = null;
+		for (PlayerConnection player : new PlayerConnection[] { white, black }) {
+			try {
+				player.writeState(state, theGson);
+			} catch (IOException e) {
+				if (failed == null) {
+					failed = player;
+				}
+			}
+		}
+		return failed;
+	}
+
+	private static boolean isOver(Turn turn) {
+		return turn == Turn.WHITEWIN || turn == Turn.BLACKWIN || turn == Turn.DRAW;
+	}
+
+	private Turn defeat(PlayerConnection player) {
+		return player == white ? Turn.BLACKWIN : Turn.WHITEWIN;
+	}
+
+}
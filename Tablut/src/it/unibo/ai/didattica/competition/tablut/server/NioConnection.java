@@ -0,0 +1,290 @@
+package it.unibo.ai.didattica.competition.tablut.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import it.unibo.ai.didattica.competition.tablut.util.BinaryProtocol;
+
+/**
+ * A client connected to a {@link NioTransport}. The bytes received are
+ * collected in a direct buffer and split into messages (4 byte length and
+ * UTF-8 bytes) by the thread of the transport; the messages wait in a queue
+ * until the game reads them. The messages to send are encoded in another
+ * direct buffer: what the socket does not accept at once is sent by the
+ * transport when the socket is writable again. Both buffers are kept for the
+ * whole connection and grow only for messages larger than any before.
+ *
+ * A connection that uses the {@link BinaryProtocol} is switched to binary
+ * with {@link #setBinary(boolean)}: from then on the messages are kept as
+ * bytes instead of being decoded as text. A client of the delta protocol
+ * also has the {@link BinaryProtocol.DeltaEncoder} of its states.
+ *
+ */
+public class NioConnection {
+
+	/**
+	 * Initial size of the buffers, enough for the JSON of a state
+	 */
+	private static final int BUFFER_SIZE = 4096;
+	/**
+	 * Largest message accepted, to refuse garbage lengths
+	 */
+	private static final int MAX_MESSAGE = 1 << 20;
+	/**
+	 * Marker put in the queue when the connection is closed
+	 */
+	private static final Object CLOSED = new Object();
+
+	private final SocketChannel channel;
+	private SelectionKey key;
+	// String, or byte[] for binary connections
+	private final BlockingQueue<Object> messages;
+	private volatile boolean closed;
+	private volatile boolean binary;
+	private BinaryProtocol.DeltaEncoder deltaEncoder;
+
+	// used only by the thread of the transport
+	private ByteBuffer in;
+	private CharBuffer chars;
+	private final CharsetDecoder decoder;
+
+	// guarded by this
+	private ByteBuffer out;
+	private final CharsetEncoder encoder;
+
+	NioConnection(SocketChannel channel) {
+		this.channel = channel;
+		this.messages = new LinkedBlockingQueue<Object>();
+		this.in = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		this.chars = CharBuffer.allocate(BUFFER_SIZE);
+		this.decoder = StandardCharsets.UTF_8.newDecoder();
+		this.out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		this.encoder = StandardCharsets.UTF_8.newEncoder();
+	}
+
+	void setKey(SelectionKey key) {
+		this.key = key;
+	}
+
+	public boolean isBinary() {
+		return binary;
+	}
+
+	/**
+	 * @param binary
+	 *            true if the client uses the {@link BinaryProtocol}
+	 */
+	public void setBinary(boolean binary) {
+		this.binary = binary;
+	}
+
+	/**
+	 * @return the encoder of the states, null if the client does not use the
+	 *         delta protocol
+	 */
+	public BinaryProtocol.DeltaEncoder getDeltaEncoder() {
+		return deltaEncoder;
+	}
+
+	public void setDeltaEncoder(BinaryProtocol.DeltaEncoder deltaEncoder) {
+		this.deltaEncoder = deltaEncoder;
+	}
+
+	/**
+	 * Waits for the next message, until the deadline
+	 *
+	 * @param deadline
+	 *            in milliseconds, as {@link System#currentTimeMillis()}
+	 * @throws SocketTimeoutException
+	 *             if no message arrived in time
+	 * @throws EOFException
+	 *             if the connection is closed
+	 */
+	public String read(long deadline) throws IOException {
+		Object message = this.take(deadline);
+		return message instanceof byte[] ? new String((byte[]) message, StandardCharsets.UTF_8) : (String) message;
+	}
+
+	/**
+	 * Waits for the next message of a binary client, until the deadline
+	 *
+	 * @see #read(long)
+	 */
+	public byte[] readBytes(long deadline) throws IOException {
+		Object message = this.take(deadline);
+		return message instanceof byte[] ? (byte[]) message : ((String) message).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private Object take(long deadline) throws IOException {
+		Object message;
+		try {
+			message = this.messages.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		}
+		if (message == null) {
+			throw new SocketTimeoutException("Deadline expired");
+		}
+		if (message == CLOSED) {
+			// leave it for the next read
+			this.messages.add(CLOSED);
+			throw new EOFException();
+		}
+		return message;
+	}
+
+	/**
+	 * Sends a binary message; it does not wait for the client to receive it
+	 */
+	public synchronized void write(byte[] message) throws IOException {
+		if (this.closed) {
+			throw new EOFException();
+		}
+		if (this.out.remaining() < 4 + message.length) {
+			this.out = grow(this.out, this.out.position() + 4 + message.length);
+		}
+		this.out.putInt(message.length);
+		this.out.put(message);
+		this.flush();
+	}
+
+	/**
+	 * Sends a message; it does not wait for the client to receive it
+	 */
+	public synchronized void write(String message) throws IOException {
+		if (this.closed) {
+			throw new EOFException();
+		}
+		int needed = 4 + (int) Math.ceil(message.length() * (double) this.encoder.maxBytesPerChar());
+		if (this.out.remaining() < needed) {
+			this.out = grow(this.out, this.out.position() + needed);
+		}
+		int start = this.out.position();
+		this.out.position(start + 4);
+		this.encoder.reset();
+		CoderResult result = this.encoder.encode(CharBuffer.wrap(message), this.out, true);
+		if (result.isError()) {
+			this.out.position(start);
+			result.throwException();
+		}
+		this.encoder.flush(this.out);
+		this.out.putInt(start, this.out.position() - start - 4);
+		this.flush();
+	}
+
+	/**
+	 * Closes the connection; the threads waiting for a message get an
+	 * {@link EOFException}
+	 */
+	public void close() {
+		this.closed = true;
+		if (this.key != null) {
+			this.key.cancel();
+		}
+		try {
+			this.channel.close();
+		} catch (IOException e) {
+			// already closed
+		}
+		this.messages.add(CLOSED);
+	}
+
+	/**
+	 * Reads what is available and queues the messages completed
+	 */
+	void onReadable() throws IOException {
+		if (this.channel.read(this.in) < 0) {
+			this.close();
+			return;
+		}
+		this.in.flip();
+		while (this.in.remaining() >= 4) {
+			int length = this.in.getInt(this.in.position());
+			if (length < 0 || length > MAX_MESSAGE) {
+				throw new IOException("Invalid message length: " + length);
+			}
+			if (this.in.remaining() < 4 + length) {
+				break;
+			}
+			this.in.position(this.in.position() + 4);
+			if (this.binary) {
+				byte[] message = new byte[length];
+				this.in.get(message);
+				this.messages.add(message);
+			} else {
+				this.messages.add(this.decode(length));
+			}
+		}
+		this.in.compact();
+		if (!this.in.hasRemaining()) {
+			// a message larger than the buffer is arriving
+			this.in = grow(this.in, this.in.capacity() * 2);
+		}
+	}
+
+	private String decode(int length) throws CharacterCodingException {
+		if (this.chars.capacity() < length) {
+			this.chars = CharBuffer.allocate(length);
+		}
+		int limit = this.in.limit();
+		this.in.limit(this.in.position() + length);
+		this.chars.clear();
+		this.decoder.reset();
+		CoderResult result = this.decoder.decode(this.in, this.chars, true);
+		this.in.limit(limit);
+		if (result.isError()) {
+			result.throwException();
+		}
+		this.decoder.flush(this.chars);
+		this.chars.flip();
+		return this.chars.toString();
+	}
+
+	/**
+	 * Sends what is left in the output buffer
+	 */
+	synchronized void onWritable() throws IOException {
+		this.flush();
+	}
+
+	// writes what the socket accepts, and asks the transport for the rest
+	private void flush() throws IOException {
+		this.out.flip();
+		try {
+			this.channel.write(this.out);
+		} finally {
+			this.out.compact();
+		}
+		boolean pending = this.out.position() > 0;
+		int ops = pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+		if (this.key.isValid() && this.key.interestOps() != ops) {
+			this.key.interestOps(ops);
+			this.key.selector().wakeup();
+		}
+	}
+
+	private static ByteBuffer grow(ByteBuffer buffer, int capacity) throws IOException {
+		if (capacity > 4 * MAX_MESSAGE) {
+			throw new IOException("Client too slow, buffer full");
+		}
+		ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(capacity, buffer.capacity() * 2));
+		buffer.flip();
+		larger.put(buffer);
+		return larger;
+	}
+
+}
@@ -0,0 +1,173 @@
+package it.unibo.ai.didattica.competition.tablut.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking networking layer of the servers. A single thread waits on a
+ * {@link Selector} for all the listening ports and all the connected
+ * players: it accepts the connections, reads the bytes into reusable direct
+ * buffers and splits them into messages, and completes the writes that did
+ * not fit in the socket. The messages use the protocol of
+ * {@link it.unibo.ai.didattica.competition.tablut.util.StreamUtils}: a 4 byte
+ * length followed by the UTF-8 bytes.
+ *
+ * The game code does not deal with the selector: it waits for new
+ * connections with {@link Listener#accept(long)} and for messages with
+ * {@link NioConnection#read(long)}, so an idle player costs only its buffers
+ * and no thread.
+ *
+ */
+public class NioTransport implements Runnable, Closeable {
+
+	private final Selector selector;
+	private Thread thread;
+
+	public NioTransport() throws IOException {
+		this.selector = Selector.open();
+	}
+
+	/**
+	 * Starts accepting connections on a port; it must be called before
+	 * {@link #start()}
+	 */
+	public Listener listen(int port) throws IOException {
+		if (this.thread != null) {
+			throw new IllegalStateException("Transport already started");
+		}
+		ServerSocketChannel channel = ServerSocketChannel.open();
+		channel.bind(new InetSocketAddress(port));
+		channel.configureBlocking(false);
+		Listener listener = new Listener(channel);
+		channel.register(this.selector, SelectionKey.OP_ACCEPT, listener);
+		return listener;
+	}
+
+	/**
+	 * Starts the thread of the selector
+	 */
+	public void start() {
+		this.thread = new Thread(this, "NioTransport");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	public void run() {
+		while (this.selector.isOpen()) {
+			try {
+				this.selector.select();
+			} catch (IOException e) {
+				e.printStackTrace();
+				return;
+			} catch (RuntimeException e) {
+				// selector closed
+				return;
+			}
+			Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+			while (keys.hasNext()) {
+				SelectionKey key = keys.next();
+				keys.remove();
+				if (key.attachment() instanceof Listener) {
+					this.accept(key);
+				} else {
+					NioConnection connection = (NioConnection) key.attachment();
+					try {
+						if (key.isValid() && key.isReadable()) {
+							connection.onReadable();
+						}
+						if (key.isValid() && key.isWritable()) {
+							connection.onWritable();
+						}
+					} catch (IOException e) {
+						connection.close();
+					}
+				}
+			}
+		}
+	}
+
+	private void accept(SelectionKey key) {
+		Listener listener = (Listener) key.attachment();
+		try {
+			SocketChannel channel = ((ServerSocketChannel) key.channel()).accept();
+			if (channel == null) {
+				return;
+			}
+			channel.configureBlocking(false);
+			channel.socket().setTcpNoDelay(true);
+			NioConnection connection = new NioConnection(channel);
+			connection.setKey(channel.register(this.selector, SelectionKey.OP_READ, connection));
+			listener.accepted.add(connection);
+		} catch (IOException e) {
+			// the client went away before the end of the handshake
+		}
+	}
+
+	/**
+	 * Closes the selector and all the connections
+	 */
+	public void close() throws IOException {
+		for (SelectionKey key : this.selector.keys()) {
+			key.channel().close();
+		}
+		this.selector.close();
+	}
+
+	/**
+	 * A listening port, with the connections accepted and not yet taken
+	 */
+	public static class Listener {
+
+		private final ServerSocketChannel channel;
+		private final BlockingQueue<NioConnection> accepted;
+
+		private Listener(ServerSocketChannel channel) {
+			this.channel = channel;
+			this.accepted = new LinkedBlockingQueue<NioConnection>();
+		}
+
+		/**
+		 * Waits for a new connection
+		 *
+		 * @param timeout
+		 *            milliseconds to wait
+		 * @throws SocketTimeoutException
+		 *             if nobody connected in time
+		 */
+		public NioConnection accept(long timeout) throws IOException {
+			try {
+				NioConnection connection = this.accepted.poll(timeout, TimeUnit.MILLISECONDS);
+				if (connection == null) {
+					throw new SocketTimeoutException("No connection on " + this.channel.getLocalAddress());
+				}
+				return connection;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(e);
+			}
+		}
+
+		/**
+		 * Waits for a new connection, with no timeout
+		 */
+		public NioConnection accept() throws IOException {
+			try {
+				return this.accepted.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(e);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+package it.unibo.ai.didattica.competition.tablut.server;
+
+import java.io.IOException;
+
+import com.google.gson.Gson;
+
+import it.unibo.ai.didattica.competition.tablut.domain.Action;
+import it.unibo.ai.didattica.competition.tablut.domain.State;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+
+/**
+ * A client connected to the tournament server, with the role and the name
+ * it has declared
+ *
+ */
+class PlayerConnection {
+
+	private final NioConnection connection;
+	private Turn role;
+	private String name;
+
+	PlayerConnection(NioConnection connection) {
+		this.connection = connection;
+	}
+
+	Turn getRole() {
+		return role;
+	}
+
+	void setRole(Turn role) {
+		this.role = role;
+	}
+
+	String getName() {
+		return name;
+	}
+
+	void setName(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Reads a message, waiting at most the given number of seconds
+	 *
+	 * @throws java.net.SocketTimeoutException
+	 *             if the client did not answer in time
+	 */
+	String read(int seconds) throws IOException {
+		return this.connection.read(System.currentTimeMillis() + seconds * 1000L);
+	}
+
+	/**
+	 * Reads the first message, after the hello of the binary protocol if the
+	 * client sends it
+	 *
+	 * @see Server#readDeclaration(NioConnection, long)
+	 */
+	String readDeclaration(int seconds) throws IOException {
+		return Server.readDeclaration(this.connection, System.currentTimeMillis() + seconds * 1000L);
+	}
+
+	/**
+	 * Reads a move, waiting at most the given number of seconds
+	 */
+	Action readAction(int seconds, Gson gson, Turn turn) throws IOException {
+		return Server.readAction(this.connection, System.currentTimeMillis() + seconds * 1000L, gson, turn);
+	}
+
+	boolean isBinary() {
+		return this.connection.isBinary();
+	}
+
+	/**
+	 * Sends a state, in the protocol of the client
+	 */
+	void writeState(State state, String json) throws IOException {
+		Server.writeState(this.connection, state, json);
+	}
+
+	void close() {
+		this.connection.close();
+	}
+
+	/**
+	 * SECURITY STEP: drops unproper characters and keeps at most 10 of them
+	 */
+	static String cleanName(String name) {
+		String temp = "";
+		for (int i = 0; name != null && i < name.length() && i < 10; i++) {
+			char c = name.charAt(i);
+			if (Character.isAlphabetic(c) || Character.isDigit(c))
+				temp += c;
+		}
+		return temp;
+	}
+
+}
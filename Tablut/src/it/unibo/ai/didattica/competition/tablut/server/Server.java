@@ -1,11 +1,8 @@
 package it.unibo.ai.didattica.competition.tablut.server;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Date;
@@ -14,8 +11,8 @@ import java.util.logging.*;
 import it.unibo.ai.didattica.competition.tablut.domain.*;
 import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
 import it.unibo.ai.didattica.competition.tablut.gui.Gui;
+import it.unibo.ai.didattica.competition.tablut.util.BinaryProtocol;
 import it.unibo.ai.didattica.competition.tablut.util.Configuration;
-import it.unibo.ai.didattica.competition.tablut.util.StreamUtils;
 
 import com.google.gson.Gson;
 import org.apache.commons.cli.*;
@@ -68,11 +65,15 @@ public class Server implements Runnable {
 	 */
 	private int repeated;
 
-	private ServerSocket socketWhite;
-	private ServerSocket socketBlack;
+	/**
+	 * Networking layer: ports and connections of the players
+	 */
+	private NioTransport transport;
+	private NioTransport.Listener socketWhite;
+	private NioTransport.Listener socketBlack;
 
-	private Socket white;
-	private Socket black;
+	private NioConnection white;
+	private NioConnection black;
 
 	/**
 	 * Counter for the errors of the black player
@@ -125,6 +126,7 @@ public class Server implements Runnable {
 		int gameChosen = 4;
 		boolean enableGui = true;
 		String replayFilePath = null;
+		boolean tournament = false;
 
 		CommandLineParser parser = new DefaultParser();
 
@@ -137,6 +139,7 @@ public class Server implements Runnable {
 		options.addOption("r","game rules", true, "game rules must be an integer; 1 for Tablut, 2 for Modern, 3 for Brandub, 4 for Ashton; default: 4");
 		options.addOption("g","enableGUI", false, "enableGUI if option is present");
 		options.addOption("R", "replay", true, "replay mode: specify txt file containing stdout from game and replay the moves");
+		options.addOption("T", "tournament", false, "tournament mode: players connect on port " + Configuration.tournamentPort + " and play many matches at the same time (Ashton rules only)");
 
 		HelpFormatter formatter = new HelpFormatter();
 		formatter.printHelp("java Server", options);
@@ -221,10 +224,24 @@ public class Server implements Runnable {
 				}
 			}
 
+			if(cmd.hasOption("T")){
+				tournament = true;
+				if (gameChosen != 4 || enableGui || replayFilePath != null){
+					System.out.println("Tournament mode supports only Ashton rules, without GUI and replay!");
+					formatter.printHelp("java Server", options);
+					System.exit(1);
+				}
+			}
+
 		}catch (ParseException exp){
 			System.out.println( "Unexpected exception:" + exp.getMessage() );
 		}
 
+		if (tournament) {
+			new TournamentServer(Configuration.tournamentPort, time, moveCache, errors, repeated).run();
+			return;
+		}
+
 		// Start the server
 		Server engine;
 		if (replayFilePath == null) {
@@ -236,51 +253,152 @@ public class Server implements Runnable {
 	}
 
 	/**
-	 * This class represents the stream who is waiting for the move from the
-	 * client (JSON format)
+	 * Waits for a client to connect, at most {@link #connectionTimeout}
+	 * seconds
 	 * 
-	 * @author A.Piretti
-	 *
+	 * @return the socket of the client, null in case of timeout
 	 */
-	private class TCPInput implements Runnable {
-		private DataInputStream theStream;
+	private NioConnection accept(NioTransport.Listener listener) throws IOException {
+		try {
+			return listener.accept(connectionTimeout * 1000L);
+		} catch (SocketTimeoutException e) {
+			return null;
+		}
+	}
 
-		public TCPInput(DataInputStream theS) {
-			this.theStream = theS;
+	/**
+	 * Reads the name of a client, waiting at most {@link #time} seconds from
+	 * now
+	 * 
+	 * @return the message, null in case of timeout
+	 */
+	private String read(NioConnection connection) throws IOException {
+		long deadline = System.currentTimeMillis() + this.time * 1000L;
+		try {
+			return readDeclaration(connection, deadline);
+		} catch (SocketTimeoutException e) {
+			return null;
 		}
+	}
 
-		public void run() {
-			try {
-				theGson = StreamUtils.readString(this.theStream);
+	/**
+	 * Counts an error of the player to move, who loses once over the
+	 * {@link #errors} allowed
+	 */
+	private void countError(State state, Exception e, Logger loggSys) {
+		if (state.getTurn().equalsTurn("B")) {
+			this.blackErrors++;
 
-			} catch (Exception e) {
+			if (this.blackErrors > errors) {
+				System.out.println("TOO MANY ERRORS FOR BLACK PLAYER; PLAYER WHITE WIN!");
+				e.printStackTrace();
+				loggSys.warning("Chiusura sistema per troppi errori giocatore nero");
+				state.setTurn(Turn.WHITEWIN);
+				this.game.endGame(state);
+			} else {
+				System.out.println("Error for black player...");
+			}
+		}
+		if (state.getTurn().equalsTurn("W")) {
+			this.whiteErrors++;
+			if (this.whiteErrors > errors) {
+				System.out.println("TOO MANY ERRORS FOR WHITE PLAYER; PLAYER BLACK WIN!");
+				e.printStackTrace();
+				loggSys.warning("Chiusura sistema per troppi errori giocatore bianco");
+				state.setTurn(Turn.BLACKWIN);
+				this.game.endGame(state);
+			} else {
+				System.out.println("Error for white player...");
 			}
 		}
 	}
 
 	/**
-	 * This class represents the socket waiting for a connection
-	 * @author Andrea Galassi
-	 *
+	 * Reads the move of a client, waiting at most {@link #time} seconds from
+	 * now
+	 * 
+	 * @return the move, null in case of timeout
 	 */
-	private class TCPConnection implements Runnable {
-		private ServerSocket serversocket;
-		private Socket socket;
-
-		public TCPConnection(ServerSocket serverSocket) {
-			this.serversocket = serverSocket;
+	private Action readMove(NioConnection connection, Turn turn) throws IOException {
+		long deadline = System.currentTimeMillis() + this.time * 1000L;
+		try {
+			return readAction(connection, deadline, this.gson, turn);
+		} catch (SocketTimeoutException e) {
+			return null;
 		}
+	}
 
-		public void run() {
-			try {
-				socket = serversocket.accept();
-			} catch (Exception e) {
+	/**
+	 * Reads the first message of a client. If it is the
+	 * {@link BinaryProtocol#HELLO} (or {@link BinaryProtocol#HELLO_DELTA}) the
+	 * connection switches to the binary protocol (with delta updates), and the
+	 * next message is read.
+	 * 
+	 * @return the first message that is not the hello
+	 */
+	static String readDeclaration(NioConnection connection, long deadline) throws IOException {
+		String message = connection.read(deadline);
+		if (BinaryProtocol.isHello(message) || BinaryProtocol.isDeltaHello(message)) {
+			if (BinaryProtocol.isDeltaHello(message)) {
+				connection.setDeltaEncoder(new BinaryProtocol.DeltaEncoder());
 			}
+			connection.setBinary(true);
+			message = connection.read(deadline);
+		}
+		return message;
+	}
+
+	/**
+	 * Reads a move, in the protocol of the client
+	 * 
+	 * @param turn
+	 *            the player to move
+	 */
+	static Action readAction(NioConnection connection, long deadline, Gson gson, Turn turn) throws IOException {
+		if (connection.isBinary()) {
+			return BinaryProtocol.decodeAction(connection.readBytes(deadline), turn);
+		}
+		return gson.fromJson(connection.read(deadline), Action.class);
+	}
+
+	/**
+	 * Sends a state, in the protocol of the client
+	 * 
+	 * @param json
+	 *            the state already converted to JSON, shared by the clients
+	 */
+	static void writeState(NioConnection connection, State state, String json) throws IOException {
+		if (connection.getDeltaEncoder() != null) {
+			connection.write(connection.getDeltaEncoder().encode(state));
+		} else if (connection.isBinary()) {
+			connection.write(BinaryProtocol.encodeState(state));
+		} else {
+			connection.write(json);
 		}
+	}
 
-		public Socket getSocket() {
-			return socket;
+	/**
+	 * Creates the system log of the server, in a new file of the logs folder
+	 * 
+	 * @return the logger of the system log
+	 */
+	static Logger openSystemLog(String logs_folder) throws IOException {
+		Path p = Paths.get(logs_folder + File.separator + new Date().getTime() + "_systemLog.txt");
+		p = p.toAbsolutePath();
+		String sysLogName = p.toString();
+		Logger loggSys = Logger.getLogger("SysLog");
+		new File(logs_folder).mkdirs();
+		System.out.println(sysLogName);
+		File systemLog = new File(sysLogName);
+		if (!systemLog.exists()) {
+			systemLog.createNewFile();
 		}
+		FileHandler fh = null;
+		fh = new FileHandler(sysLogName, true);
+		loggSys.addHandler(fh);
+		fh.setFormatter(new SimpleFormatter());
+		loggSys.setLevel(Level.FINE);
+		return loggSys;
 	}
 
 	/**
@@ -301,22 +419,9 @@ public class Server implements Runnable {
 		 * Name of the systemlog
 		 */
 		String logs_folder = "logs";
-		Path p = Paths.get(logs_folder + File.separator + new Date().getTime() + "_systemLog.txt");
-		p = p.toAbsolutePath();
-		String sysLogName = p.toString();
-		Logger loggSys = Logger.getLogger("SysLog");
+		Logger loggSys = null;
 		try {
-			new File(logs_folder).mkdirs();
-			System.out.println(sysLogName);
-			File systemLog = new File(sysLogName);
-			if (!systemLog.exists()) {
-				systemLog.createNewFile();
-			}
-			FileHandler fh = null;
-			fh = new FileHandler(sysLogName, true);
-			loggSys.addHandler(fh);
-			fh.setFormatter(new SimpleFormatter());
-			loggSys.setLevel(Level.FINE);
+			loggSys = openSystemLog(logs_folder);
 			loggSys.fine("Accensione server");
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -342,85 +447,42 @@ public class Server implements Runnable {
 		}
 
 		Date starttime = new Date();
-		Thread t;
 
-		/**
-		 * Channel to receive the move of the white player
-		 */
-		DataInputStream whiteMove = null;
-		/**
-		 * Channel to receive the move of the black player
-		 */
-		DataInputStream blackMove = null;
-		/**
-		 * Channel to send the state to the white player
-		 */
-		DataOutputStream whiteState = null;
-		/**
-		 * Channel to send the state to the black player
-		 */
-		DataOutputStream blackState = null;
 		System.out.println("Waiting for connections...");
 
 		String whiteName = "WP";
 		String blackName = "BP";
 
 		/**
-		 * Socket of the current player
+		 * Connection of the current player
 		 */
-		TCPInput tin = null;
-		TCPInput Turnwhite = null;
-		TCPInput Turnblack = null;
-		TCPConnection tc = null;
+		NioConnection current = null;
 
 		// ESTABLISH CONNECTIONS AND NAME READING
 		try {
-			this.socketWhite = new ServerSocket(Configuration.whitePort);
-			this.socketBlack = new ServerSocket(Configuration.blackPort);
+			this.transport = new NioTransport();
+			this.socketWhite = this.transport.listen(Configuration.whitePort);
+			this.socketBlack = this.transport.listen(Configuration.blackPort);
+			this.transport.start();
 			
 
 			// ESTABLISHING CONNECTION
-			tc = new TCPConnection(socketWhite);
-			t = new Thread(tc);
-			t.start();
 			loggSys.fine("Waiting for white connection..");
 			// timeout for connection
-			try {
-				int counter = 0;
-				while (counter < connectionTimeout && t.isAlive()) {
-					Thread.sleep(1000);
-					counter++;
-				}
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
-			if (t.isAlive()) {
+			white = this.accept(socketWhite);
+			if (white == null) {
 				System.out.println("Timeout!!!!");
 				loggSys.warning("Closing system for timeout!");
 				System.exit(0);
 			}
 			
-			white = tc.getSocket();
 			loggSys.fine("White player connected");
-			whiteMove = new DataInputStream(white.getInputStream());
-			whiteState = new DataOutputStream(white.getOutputStream());
-			Turnwhite = new TCPInput(whiteMove);
 
 			// NAME READING
-			t = new Thread(Turnwhite);
-			t.start();
 			loggSys.fine("Lettura nome player bianco in corso..");
 			// timeout for name declaration
-			try {
-				int counter = 0;
-				while (counter < time && t.isAlive()) {
-					Thread.sleep(1000);
-					counter++;
-				}
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
-			if (t.isAlive()) {
+			theGson = this.read(white);
+			if (theGson == null) {
 				System.out.println("Timeout!!!!");
 				loggSys.warning("Chiusura sistema per timeout");
 				System.exit(0);
@@ -440,47 +502,21 @@ public class Server implements Runnable {
 
 			
 			// ESTABLISHING CONNECTION
-			tc = new TCPConnection(socketBlack);
-			t = new Thread(tc);
-			t.start();
 			loggSys.fine("Waiting for Black connection..");
 			// timeout for connection
-			try {
-				int counter = 0;
-				while (counter < connectionTimeout && t.isAlive()) {
-					Thread.sleep(1000);
-					counter++;
-				}
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
-			if (t.isAlive()) {
+			black = this.accept(socketBlack);
+			if (black == null) {
 				System.out.println("Timeout!!!!");
 				loggSys.warning("Closing system for timeout!");
 				System.exit(0);
 			}
-			black = tc.getSocket();
 			loggSys.fine("Accettata connessione con client giocatore Nero");
-			blackMove = new DataInputStream(black.getInputStream());
-			blackState = new DataOutputStream(black.getOutputStream());
-			Turnblack = new TCPInput(blackMove);
 
 			// NAME READING
-			t = new Thread(Turnblack);
-			t.start();
 			loggSys.fine("Lettura nome player nero in corso..");
-			try {
-				// timer for the move
-				int counter = 0;
-				while (counter < time && t.isAlive()) {
-					Thread.sleep(1000);
-					counter++;
-				}
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
+			theGson = this.read(black);
 			// timeout for name declaration
-			if (t.isAlive()) {
+			if (theGson == null) {
 				System.out.println("Timeout!!!!");
 				loggSys.warning("Chiusura sistema per timeout");
 				System.exit(0);
@@ -534,11 +570,11 @@ public class Server implements Runnable {
 
 		// SEND INITIAL STATE
 
-		tin = Turnwhite;
+		current = white;
 		try {
-			theGson = gson.toJson(state);
-			StreamUtils.writeString(whiteState, theGson);
-			StreamUtils.writeString(blackState, theGson);
+			theGson = white.isBinary() && black.isBinary() ? null : gson.toJson(state);
+			writeState(white, state, theGson);
+			writeState(black, state, theGson);
 			loggSys.fine("Invio messaggio ai giocatori");
 			if (enableGui) {
 				theGui.update(state);
@@ -557,22 +593,23 @@ public class Server implements Runnable {
 			// System.out.println("State: \n"+state.toString());
 			System.out.println("Waiting for " + state.getTurn() + "...");
 
-			// create the process that listen the answer
-			t = new Thread(tin);
-			t.start();
+			// wait for the answer, until the time for the move expires
 			loggSys.fine("Lettura mossa player " + state.getTurn() + " in corso..");
+			boolean unreadable = false;
 			try {
-				// timer for the move
-				int counter = 0;
-				while (counter < time && t.isAlive()) {
-					Thread.sleep(1000);
-					counter++;
-				}
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+				move = this.readMove(current, state.getTurn());
+			} catch (IOException e) {
+				// the player is gone: same as a timeout
+				move = null;
+			} catch (RuntimeException e) {
+				// not a move at all: an error of the player, as an illegal move
+				System.out.println("Unreadable move: " + e.getMessage());
+				loggSys.fine("Mossa illeggibile: " + e.getMessage());
+				this.countError(state, e, loggSys);
+				unreadable = true;
 			}
 			// loss for timeout
-			if (t.isAlive()) {
+			if (move == null && !unreadable) {
 				System.out.println("Timeout!!!!");
 				System.out.println("Player " + state.getTurn().toString() + " has lost!");
 				loggSys.warning("Timeout! Player " + state.getTurn() + " lose!");
@@ -581,41 +618,17 @@ public class Server implements Runnable {
 			}
 
 			// APPLY MOVE
-			// translate the string into an action object
-			move = this.gson.fromJson(theGson, Action.class);
-			loggSys.fine("Move received.\t" + move.toString());
-			move.setTurn(state.getTurn());
-			System.out.println("Suggested move: " + move.toString());
-
-			try {
-				// aggiorna tutto e determina anche eventuali fine partita
-				state = this.game.checkMove(state, move);
-			} catch (Exception e) {
-				// exception means error, therefore increase the error counters
-				if (state.getTurn().equalsTurn("B")) {
-					this.blackErrors++;
-
-					if (this.blackErrors > errors) {
-						System.out.println("TOO MANY ERRORS FOR BLACK PLAYER; PLAYER WHITE WIN!");
-						e.printStackTrace();
-						loggSys.warning("Chiusura sistema per troppi errori giocatore nero");
-						state.setTurn(Turn.WHITEWIN);
-						this.game.endGame(state);
-					} else {
-						System.out.println("Error for black player...");
-					}
-				}
-				if (state.getTurn().equalsTurn("W")) {
-					this.whiteErrors++;
-					if (this.whiteErrors > errors) {
-						System.out.println("TOO MANY ERRORS FOR WHITE PLAYER; PLAYER BLACK WIN!");
-						e.printStackTrace();
-						loggSys.warning("Chiusura sistema per troppi errori giocatore bianco");
-						state.setTurn(Turn.BLACKWIN);
-						this.game.endGame(state);
-					} else {
-						System.out.println("Error for white player...");
-					}
+			if (!unreadable) {
+				loggSys.fine("Move received.\t" + move.toString());
+				move.setTurn(state.getTurn());
+				System.out.println("Suggested move: " + move.toString());
+
+				try {
+					// aggiorna tutto e determina anche eventuali fine partita
+					state = this.game.checkMove(state, move);
+				} catch (Exception e) {
+					// exception means error, therefore increase the error counters
+					this.countError(state, e, loggSys);
 				}
 			}
 
@@ -635,9 +648,9 @@ public class Server implements Runnable {
 
 			// SEND STATE TO PLAYERS
 			try {
-				theGson = gson.toJson(state);
-				StreamUtils.writeString(whiteState, theGson);
-				StreamUtils.writeString(blackState, theGson);
+				theGson = white.isBinary() && black.isBinary() ? null : gson.toJson(state);
+				writeState(white, state, theGson);
+				writeState(black, state, theGson);
 				loggSys.fine("Invio messaggio ai client");
 				if (enableGui) {
 					theGui.update(state);
@@ -652,10 +665,10 @@ public class Server implements Runnable {
 
 			switch (state.getTurn()) {
 			case WHITE:
-				tin = Turnwhite;
+				current = white;
 				break;
 			case BLACK:
-				tin = Turnblack;
+				current = black;
 				break;
 			case BLACKWIN:
 				this.game.endGame(state);
@@ -0,0 +1,182 @@
+package it.unibo.ai.didattica.competition.tablut.server;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Logger;
+
+import com.google.gson.Gson;
+
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+import it.unibo.ai.didattica.competition.tablut.util.TaskExecutors;
+
+/**
+ * Server that plays many matches at the same time, for tournaments. All the
+ * players connect on a single port and, before their name, send their role
+ * (WHITE or BLACK). A player that has declared its role waits for an
+ * opponent of the other role: every couple becomes a {@link Match}, that is
+ * played on its own task with its own game.
+ *
+ * All the connections are served by a single {@link NioTransport} thread, so
+ * players waiting for an opponent cost no thread. Every registration and
+ * every match gets a virtual thread when the JDK has them, so thousands of
+ * games need no tuning of a thread pool. The server keeps accepting players
+ * until the process is stopped, and prints the result of every match and the
+ * standings.
+ *
+ */
+public class TournamentServer implements Runnable {
+
+	private final int port;
+	/**
+	 * Number of seconds allowed for a decision
+	 */
+	private final int time;
+	/**
+	 * Number of states kept in memory for the detection of a draw
+	 */
+	private final int cacheSize;
+	/**
+	 * Errors allowed
+	 */
+	private final int errors;
+	/**
+	 * Repeated positions allowed
+	 */
+	private final int repeated;
+
+	private final Gson gson;
+	/**
+	 * Tasks of the server: registration of the players and matches, one
+	 * thread each
+	 */
+	private final ExecutorService tasks;
+
+	private final Deque<PlayerConnection> waitingWhite;
+	private final Deque<PlayerConnection> waitingBlack;
+	/**
+	 * Wins, draws and losses of every player, by name
+	 */
+	private final Map<String, int[]> standings;
+	private int matches;
+
+	private Logger loggSys;
+
+	public TournamentServer(int port, int timeout, int cacheSize, int numErrors, int repeated) {
+		this.port = port;
+		this.time = timeout;
+		this.cacheSize = cacheSize;
+		this.errors = numErrors;
+		this.repeated = repeated;
+		this.gson = new Gson();
+		this.tasks = TaskExecutors.newPerTaskExecutor();
+		this.waitingWhite = new ArrayDeque<PlayerConnection>();
+		this.waitingBlack = new ArrayDeque<PlayerConnection>();
+		this.standings = new TreeMap<String, int[]>();
+	}
+
+	/**
+	 * Accepts players until the process is stopped
+	 */
+	public void run() {
+		try {
+			this.loggSys = Server.openSystemLog("logs");
+			this.loggSys.fine("Accensione server torneo");
+		} catch (IOException e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+
+		try (NioTransport transport = new NioTransport()) {
+			NioTransport.Listener listener = transport.listen(this.port);
+			transport.start();
+			System.out.println("Tournament: waiting for players on port " + this.port + "...");
+			loggSys.fine(TaskExecutors.hasVirtualThreads() ? "Matches on virtual threads"
+					: "Matches on platform threads, virtual threads need JDK 21");
+			while (true) {
+				NioConnection connection = listener.accept();
+				this.tasks.execute(() -> this.register(connection));
+			}
+		} catch (IOException e) {
+			System.out.println("Socket error....");
+			loggSys.warning("Errore connessioni");
+			loggSys.warning("Chiusura sistema");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Reads the role and the name of a new player and puts it in the queue of
+	 * its role; a player that does not declare them in time is dropped
+	 */
+	private void register(NioConnection connection) {
+		PlayerConnection player = new PlayerConnection(connection);
+		try {
+			Turn role = this.gson.fromJson(player.readDeclaration(this.time), Turn.class);
+			if (role != Turn.WHITE && role != Turn.BLACK) {
+				throw new IOException("Role must be WHITE or BLACK");
+			}
+			player.setRole(role);
+			player.setName(PlayerConnection.cleanName(this.gson.fromJson(player.read(this.time), String.class)));
+		} catch (Exception e) {
+			loggSys.warning("Player refused: " + e);
+			player.close();
+			return;
+		}
+		System.out.println(player.getRole() + " player connected:\t" + player.getName());
+		loggSys.fine(player.getRole() + " player connected:\t" + player.getName());
+		this.enqueue(player);
+	}
+
+	/**
+	 * Starts a match for every white player and black player waiting
+	 */
+	private synchronized void enqueue(PlayerConnection player) {
+		if (player.getRole() == Turn.WHITE) {
+			this.waitingWhite.add(player);
+		} else {
+			this.waitingBlack.add(player);
+		}
+		while (!this.waitingWhite.isEmpty() && !this.waitingBlack.isEmpty()) {
+			Match match = new Match(++this.matches, this.waitingWhite.poll(), this.waitingBlack.poll(), this.time,
+					this.cacheSize, this.errors, this.repeated, this.loggSys);
+			System.out.println(match + " started");
+			this.tasks.execute(() -> {
+				match.run();
+				this.record(match);
+			});
+		}
+	}
+
+	private synchronized void record(Match match) {
+		Turn result = match.getResult();
+		int[] white = this.standings.computeIfAbsent(match.getWhiteName(), k -> new int[3]);
+		int[] black = this.standings.computeIfAbsent(match.getBlackName(), k -> new int[3]);
+		switch (result) {
+		case WHITEWIN:
+			white[0]++;
+			black[2]++;
+			break;
+		case BLACKWIN:
+			white[2]++;
+			black[0]++;
+			break;
+		default:
+			white[1]++;
+			black[1]++;
+		}
+		System.out.println(match + " RESULT: " + result);
+		StringBuilder table = new StringBuilder("Standings (won/drawn/lost):");
+		for (Map.Entry<String, int[]> entry : this.standings.entrySet()) {
+			int[] score = entry.getValue();
+			table.append("\n").append(entry.getKey()).append("\t").append(score[0]).append("/").append(score[1])
+					.append("/").append(score[2]);
+		}
+		System.out.println(table);
+		loggSys.fine(match + " RESULT: " + result + "\n" + table);
+	}
+
+}
@@ -0,0 +1,193 @@
+package it.unibo.ai.didattica.competition.tablut.tester;
+
+import it.unibo.ai.didattica.competition.tablut.client.AlphaBetaPlayer;
+import it.unibo.ai.didattica.competition.tablut.client.MctsPlayer;
+import it.unibo.ai.didattica.competition.tablut.client.Player;
+import it.unibo.ai.didattica.competition.tablut.client.RandomPlayer;
+import it.unibo.ai.didattica.competition.tablut.domain.Action;
+import it.unibo.ai.didattica.competition.tablut.domain.BitboardState;
+import it.unibo.ai.didattica.competition.tablut.domain.GameAshtonTablut;
+import it.unibo.ai.didattica.competition.tablut.domain.State;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+import it.unibo.ai.didattica.competition.tablut.domain.StateTablut;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays many games between two {@link Player}s in the same process, directly
+ * on the rules engine: no server, no sockets and no JSON. The games run in
+ * parallel on a fixed pool of threads and the players swap colors from one
+ * game to the next, so that the results can be used to compare two versions
+ * of a bot over thousands of games.
+ *
+ * Every move is validated by {@link GameAshtonTablut#checkMove(State, Action)}
+ * as the server does: a player that makes an illegal move, or no move, loses
+ * the game. Games longer than {@link #MAX_PLIES} are counted as draws.
+ *
+ * Usage: Arena [games] [parallel] [playerA] [playerB] [time], where a player
+ * is random, alphabeta[:MB of transposition table], mcts[:MB of tree] or
+ * mctsgraph[:MB of graph] and time is the milliseconds given to every move.
+ *
+ */
+public class Arena {
+
+	/**
+	 * Plies after which a game is stopped and counted as a draw
+	 */
+	public static final int MAX_PLIES = 500;
+
+	private final String specA;
+	private final String specB;
+	private final long moveTime;
+
+	// wins of A as white and as black, wins of B as white and as black, draws
+	private final AtomicLong winsAWhite = new AtomicLong();
+	private final AtomicLong winsABlack = new AtomicLong();
+	private final AtomicLong winsBWhite = new AtomicLong();
+	private final AtomicLong winsBBlack = new AtomicLong();
+	private final AtomicLong draws = new AtomicLong();
+	private final AtomicLong illegal = new AtomicLong();
+	private final AtomicLong plies = new AtomicLong();
+
+	public Arena(String specA, String specB, long moveTime) {
+		this.specA = specA;
+		this.specB = specB;
+		this.moveTime = moveTime;
+	}
+
+	/**
+	 * Creates a player from its description
+	 *
+	 * @param spec
+	 *            random, alphabeta, mcts or mctsgraph, optionally followed by
+	 *            :MB of transposition table, tree or graph
+	 */
+	public static Player newPlayer(String spec, Turn role, long seed) {
+		String[] parts = spec.toLowerCase().split(":");
+		if (parts[0].equals("random")) {
+			return new RandomPlayer(seed);
+		}
+		if (parts[0].equals("alphabeta")) {
+			int tableMemory = parts.length > 1 ? Integer.parseInt(parts[1]) : 16;
+			AlphaBetaPlayer player = new AlphaBetaPlayer(tableMemory);
+			player.setVerbose(false);
+			return player;
+		}
+		if (parts[0].equals("mcts") || parts[0].equals("mctsgraph")) {
+			int treeMemory = parts.length > 1 ? Integer.parseInt(parts[1]) : 64;
+			MctsPlayer player = new MctsPlayer(role, 1, treeMemory, seed, parts[0].equals("mctsgraph"));
+			player.setVerbose(false);
+			return player;
+		}
+		throw new IllegalArgumentException("Unknown player: " + spec);
+	}
+
+	/**
+	 * Plays a game
+	 *
+	 * @param aIsWhite
+	 *            true if player A has the white pawns
+	 * @return the final turn: WHITEWIN, BLACKWIN or DRAW
+	 */
+	public Turn play(int game, boolean aIsWhite) {
+		long seed = System.nanoTime() + game * 1000003L;
+		Player white = newPlayer(aIsWhite ? this.specA : this.specB, Turn.WHITE, seed);
+		Player black = newPlayer(aIsWhite ? this.specB : this.specA, Turn.BLACK, seed + 1);
+		// same rules as the server: no repeated states, cache of all the game
+		GameAshtonTablut rules = new GameAshtonTablut(0, -1);
+
+		State start = new StateTablut();
+		start.setTurn(Turn.WHITE);
+		State state = BitboardState.fromState(start);
+		Turn result = Turn.DRAW;
+		try {
+			for (int ply = 0; ply < MAX_PLIES; ply++) {
+				Turn turn = state.getTurn();
+				if (turn != Turn.WHITE && turn != Turn.BLACK) {
+					result = turn;
+					break;
+				}
+				Player player = turn == Turn.WHITE ? white : black;
+				Action move = player.chooseMove(state.clone(), System.currentTimeMillis() + this.moveTime);
+				Turn loss = turn == Turn.WHITE ? Turn.BLACKWIN : Turn.WHITEWIN;
+				if (move == null || move.getTurn() != turn) {
+					this.illegal.incrementAndGet();
+					result = loss;
+					break;
+				}
+				try {
+					state = rules.checkMove(state, move);
+				} catch (Exception e) {
+					this.illegal.incrementAndGet();
+					result = loss;
+					break;
+				}
+				this.plies.incrementAndGet();
+			}
+			if (state.getTurn() != Turn.WHITE && state.getTurn() != Turn.BLACK) {
+				result = state.getTurn();
+			}
+		} finally {
+			white.gameEnded(state);
+			black.gameEnded(state);
+		}
+
+		boolean aWins = (result == Turn.WHITEWIN) == aIsWhite;
+		if (result == Turn.DRAW) {
+			this.draws.incrementAndGet();
+		} else if (aWins) {
+			(aIsWhite ? this.winsAWhite : this.winsABlack).incrementAndGet();
+		} else {
+			(aIsWhite ? this.winsBBlack : this.winsBWhite).incrementAndGet();
+		}
+		return result;
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int parallel = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		String specA = args.length > 2 ? args[2] : "mcts";
+		String specB = args.length > 3 ? args[3] : "random";
+		long moveTime = args.length > 4 ? Long.parseLong(args[4]) : 100;
+
+		Arena arena = new Arena(specA, specB, moveTime);
+		System.out.println("Arena: " + games + " games of " + specA + " (A) vs " + specB + " (B), " + parallel
+				+ " in parallel, " + moveTime + "ms per move");
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallel));
+		List<Future<Turn>> results = new ArrayList<Future<Turn>>();
+		long start = System.nanoTime();
+		for (int i = 0; i < games; i++) {
+			final int game = i;
+			results.add(executor.submit(() -> arena.play(game, game % 2 == 0)));
+		}
+		for (Future<Turn> f : results) {
+			try {
+				f.get();
+			} catch (ExecutionException e) {
+				e.getCause().printStackTrace();
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		executor.shutdown();
+
+		double seconds = elapsed / 1e9;
+		long winsA = arena.winsAWhite.get() + arena.winsABlack.get();
+		long winsB = arena.winsBWhite.get() + arena.winsBBlack.get();
+		System.out.println(String.format("%d games in %.1fs: %.1f games/s, %.0f plies/s", games, seconds,
+				games / seconds, arena.plies.get() / seconds));
+		System.out.println(String.format("A %s: %d wins (%.1f%%), %d as white, %d as black", specA, winsA,
+				100.0 * winsA / games, arena.winsAWhite.get(), arena.winsABlack.get()));
+		System.out.println(String.format("B %s: %d wins (%.1f%%), %d as white, %d as black", specB, winsB,
+				100.0 * winsB / games, arena.winsBWhite.get(), arena.winsBBlack.get()));
+		System.out.println(String.format("Draws: %d (%.1f%%), games lost by an illegal move: %d", arena.draws.get(),
+				100.0 * arena.draws.get() / games, arena.illegal.get()));
+	}
+
+}
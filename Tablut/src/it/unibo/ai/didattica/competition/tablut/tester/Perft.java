@@ -0,0 +1,153 @@
+package it.unibo.ai.didattica.competition.tablut.tester;
+
+import it.unibo.ai.didattica.competition.tablut.domain.Action;
+import it.unibo.ai.didattica.competition.tablut.domain.BitboardState;
+import it.unibo.ai.didattica.competition.tablut.domain.Game;
+import it.unibo.ai.didattica.competition.tablut.domain.GameAshtonTablut;
+import it.unibo.ai.didattica.competition.tablut.domain.GameTablut;
+import it.unibo.ai.didattica.competition.tablut.domain.MoveGenerator;
+import it.unibo.ai.didattica.competition.tablut.domain.State;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Pawn;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+import it.unibo.ai.didattica.competition.tablut.domain.StateBrandub;
+import it.unibo.ai.didattica.competition.tablut.domain.StateTablut;
+
+/**
+ * Counts the positions reached after 1..N moves from the initial position
+ * (perft), to measure how fast the rules engines and the move generator are
+ * and to check that they agree.
+ *
+ * Every game is enumerated by trying all the orthogonal moves of the pawns of
+ * the player to move with {@link Game#checkMove(State, Action)}, which is the
+ * reference. For the Ashton rules the counts of {@link MoveGenerator} with
+ * {@link GameAshtonTablut#applyMove(State, int)} on a {@link BitboardState}
+ * are computed too, and must be the same. Positions where the game is over
+ * are not expanded; draws by repetition or by number of moves are disabled,
+ * since they depend on the history of the match and not on the position.
+ *
+ * Usage: Perft [ashton|brandub] [depth]. The exit code is 1 if the counts
+ * differ, so the tool can be used as a regression check.
+ *
+ */
+public class Perft {
+
+	private final Game rules;
+
+	public Perft(Game rules) {
+		this.rules = rules;
+	}
+
+	/**
+	 * @return the number of positions reached after depth moves, every move
+	 *         validated by checkMove
+	 */
+	public long perftChecked(State state, int depth) {
+		if (depth == 0) {
+			return 1;
+		}
+		Turn turn = state.getTurn();
+		if (turn != Turn.WHITE && turn != Turn.BLACK) {
+			return 0;
+		}
+		int size = state.getBoardSize();
+		long nodes = 0;
+		for (int rowFrom = 0; rowFrom < size; rowFrom++) {
+			for (int columnFrom = 0; columnFrom < size; columnFrom++) {
+				Pawn pawn = state.getPawn(rowFrom, columnFrom);
+				boolean own = turn == Turn.WHITE ? pawn == Pawn.WHITE || pawn == Pawn.KING : pawn == Pawn.BLACK;
+				if (!own) {
+					continue;
+				}
+				for (int i = 0; i < size; i++) {
+					if (i != rowFrom) {
+						nodes += this.tryMove(state, rowFrom, columnFrom, i, columnFrom, depth);
+					}
+					if (i != columnFrom) {
+						nodes += this.tryMove(state, rowFrom, columnFrom, rowFrom, i, depth);
+					}
+				}
+			}
+		}
+		return nodes;
+	}
+
+	private long tryMove(State state, int rowFrom, int columnFrom, int rowTo, int columnTo, int depth) {
+		State next;
+		try {
+			Action a = new Action(state.getBox(rowFrom, columnFrom), state.getBox(rowTo, columnTo), state.getTurn());
+			next = this.rules.checkMove(state.clone(), a);
+		} catch (Exception e) {
+			// mossa non valida
+			return 0;
+		}
+		return this.perftChecked(next, depth - 1);
+	}
+
+	/**
+	 * @return the number of positions reached after depth moves, generated by
+	 *         {@link MoveGenerator}
+	 */
+	public static long perftGenerated(GameAshtonTablut rules, BitboardState state, int depth, int[][] buffers) {
+		int[] moves = buffers[depth];
+		int n = MoveGenerator.generate(state, moves);
+		if (depth == 1) {
+			return n;
+		}
+		long nodes = 0;
+		for (int i = 0; i < n; i++) {
+			State next = rules.applyMove(state.clone(), moves[i]);
+			nodes += perftGenerated(rules, (BitboardState) next, depth - 1, buffers);
+		}
+		return nodes;
+	}
+
+	public static void main(String[] args) {
+		String game = args.length > 0 ? args[0].toLowerCase() : "ashton";
+		int maxDepth = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+		State initial;
+		Game rules;
+		GameAshtonTablut ashton = null;
+		if (game.equals("ashton")) {
+			initial = new StateTablut();
+			initial.setTurn(Turn.WHITE);
+			ashton = new GameAshtonTablut(Integer.MAX_VALUE, 0);
+			rules = ashton;
+		} else if (game.equals("brandub")) {
+			initial = new StateBrandub();
+			rules = new GameTablut(Integer.MAX_VALUE, false);
+		} else {
+			System.out.println("Usage: Perft [ashton|brandub] [depth]");
+			System.exit(2);
+			return;
+		}
+
+		Perft perft = new Perft(rules);
+		int[][] buffers = new int[maxDepth + 1][MoveGenerator.MAX_MOVES];
+		boolean ok = true;
+		System.out.println("depth\tcheckMove\tnodes/s\t\tgenerator\tnodes/s");
+		for (int depth = 1; depth <= maxDepth; depth++) {
+			long start = System.nanoTime();
+			long checked = perft.perftChecked(initial.clone(), depth);
+			long checkedTime = System.nanoTime() - start;
+			String line = depth + "\t" + checked + "\t\t" + nodesPerSecond(checked, checkedTime);
+			if (ashton != null) {
+				start = System.nanoTime();
+				long generated = perftGenerated(ashton, BitboardState.fromState(initial), depth, buffers);
+				long generatedTime = System.nanoTime() - start;
+				line += "\t\t" + generated + "\t\t" + nodesPerSecond(generated, generatedTime);
+				if (generated != checked) {
+					line += "\tMISMATCH";
+					ok = false;
+				}
+			}
+			System.out.println(line);
+		}
+		System.exit(ok ? 0 : 1);
+	}
+
+	private static long nodesPerSecond(long nodes, long nanos) {
+		return nanos == 0 ? 0 : nodes * 1000000000L / nanos;
+	}
+
+}
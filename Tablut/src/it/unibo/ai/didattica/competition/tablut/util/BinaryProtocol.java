@@ -0,0 +1,335 @@
+package it.unibo.ai.didattica.competition.tablut.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import it.unibo.ai.didattica.competition.tablut.domain.Action;
+import it.unibo.ai.didattica.competition.tablut.domain.Move;
+import it.unibo.ai.didattica.competition.tablut.domain.State;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Pawn;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+import it.unibo.ai.didattica.competition.tablut.domain.StateBrandub;
+import it.unibo.ai.didattica.competition.tablut.domain.StateTablut;
+
+/**
+ * Compact binary alternative to the JSON messages. The framing does not
+ * change (see {@link StreamUtils}), only the content of the states and of the
+ * moves:
+ * <ul>
+ * <li>a state is 2 bytes of header and the board at 2 bits per box, 23 bytes
+ * for a 9x9 board instead of about 1 KB of JSON: the first byte is the
+ * ordinal of the turn, plus {@link #THRONE_FLAG} when the central box holds
+ * an empty throne, the second byte is the size of the board, then the boxes
+ * follow row by row, 4 per byte starting from the low bits;</li>
+ * <li>a move is 2 bytes, the boxes from and to as row * 16 + column; the
+ * turn is not sent, the server knows it.</li>
+ * </ul>
+ * A client asks for this protocol by sending {@link #HELLO} before anything
+ * else, its name included; the names and the roles stay JSON strings. Clients
+ * that do not send it keep receiving JSON.
+ *
+ * A client that sends {@link #HELLO_DELTA} instead receives every state but
+ * the first as a delta, encoded by a {@link DeltaEncoder}: the first byte is
+ * {@link #DELTA}, the second the turn plus {@link #CHECKSUM_FLAG}, then the
+ * number of boxes changed and, for each of them, the box (row * 16 + column)
+ * and the ordinal of its new {@link Pawn}. A move without captures is 7
+ * bytes. Every {@link #CHECKSUM_PERIOD} deltas, and at the end of the game,
+ * the {@link State#getZobristKey() Zobrist key} of the new state follows, so
+ * that the client can verify that its copy of the board is still right.
+ * States that would need a longer delta are sent whole, after a
+ * {@link #FULL} byte.
+ *
+ */
+public class BinaryProtocol {
+
+	/**
+	 * First message of a client that wants the binary protocol. It is not a
+	 * JSON string, so it cannot be mistaken for a name.
+	 */
+	public static final String HELLO = "TABLUT-BINARY/1";
+
+	/**
+	 * First message of a client that wants the binary protocol with delta
+	 * updates of the state
+	 */
+	public static final String HELLO_DELTA = "TABLUT-DELTA/1";
+
+	/**
+	 * First byte of a whole state, in delta mode
+	 */
+	public static final byte FULL = 0;
+	/**
+	 * First byte of a delta
+	 */
+	public static final byte DELTA = 1;
+	/**
+	 * Set in the turn byte of a delta followed by a checksum
+	 */
+	public static final int CHECKSUM_FLAG = 0x10;
+	/**
+	 * Maximum number of deltas sent without a checksum
+	 */
+	public static final int CHECKSUM_PERIOD = 8;
+
+	/**
+	 * Set in the first byte of a state when the central box is an empty
+	 * throne
+	 */
+	public static final int THRONE_FLAG = 0x08;
+
+	private static final int TURN_MASK = 0x07;
+	private static final int HEADER = 2;
+	// values of the boxes, in the order of the 2 bit codes
+	private static final Pawn[] CODES = { Pawn.EMPTY, Pawn.WHITE, Pawn.BLACK, Pawn.KING };
+
+	private BinaryProtocol() {
+	}
+
+	public static boolean isHello(String message) {
+		return HELLO.equals(message);
+	}
+
+	public static boolean isDeltaHello(String message) {
+		return HELLO_DELTA.equals(message);
+	}
+
+	public static byte[] hello() {
+		return HELLO.getBytes(StandardCharsets.UTF_8);
+	}
+
+	public static byte[] deltaHello() {
+		return HELLO_DELTA.getBytes(StandardCharsets.UTF_8);
+	}
+
+	public static byte[] encodeState(State state) {
+		int size = state.getBoardSize();
+		int center = size / 2;
+		byte[] message = new byte[HEADER + (size * size + 3) / 4];
+		int header = state.getTurn().ordinal();
+		for (int row = 0; row < size; row++) {
+			for (int column = 0; column < size; column++) {
+				int code;
+				switch (state.getPawn(row, column)) {
+				case WHITE:
+					code = 1;
+					break;
+				case BLACK:
+					code = 2;
+					break;
+				case KING:
+					code = 3;
+					break;
+				case THRONE:
+					if (row != center || column != center) {
+						throw new IllegalArgumentException("Throne out of the center of the board");
+					}
+					header |= THRONE_FLAG;
+					code = 0;
+					break;
+				default:
+					code = 0;
+				}
+				int i = row * size + column;
+				message[HEADER + i / 4] |= code << (i % 4 * 2);
+			}
+		}
+		message[0] = (byte) header;
+		message[1] = (byte) size;
+		return message;
+	}
+
+	/**
+	 * @return a {@link StateTablut} for 9x9 boards, a {@link StateBrandub} for
+	 *         7x7 boards
+	 */
+	public static State decodeState(byte[] message) throws IOException {
+		if (message.length < HEADER) {
+			throw new IOException("State message too short: " + message.length + " bytes");
+		}
+		int size = message[1];
+		if (message.length != HEADER + (size * size + 3) / 4) {
+			throw new IOException("Wrong length of a " + size + "x" + size + " state: " + message.length + " bytes");
+		}
+		Turn[] turns = Turn.values();
+		int turn = message[0] & TURN_MASK;
+		if (turn >= turns.length) {
+			throw new IOException("Unknown turn: " + turn);
+		}
+		State state;
+		if (size == 9) {
+			state = new StateTablut();
+		} else if (size == 7) {
+			state = new StateBrandub();
+		} else {
+			throw new IOException("Unsupported board size: " + size);
+		}
+		Pawn[][] board = new Pawn[size][size];
+		for (int row = 0; row < size; row++) {
+			for (int column = 0; column < size; column++) {
+				int i = row * size + column;
+				board[row][column] = CODES[(message[HEADER + i / 4] >> (i % 4 * 2)) & 3];
+			}
+		}
+		if ((message[0] & THRONE_FLAG) != 0) {
+			board[size / 2][size / 2] = Pawn.THRONE;
+		}
+		state.setBoard(board);
+		state.setTurn(turns[turn]);
+		return state;
+	}
+
+	/**
+	 * Applies a message of the delta protocol, a delta or a whole state
+	 *
+	 * @param current
+	 *            the last state received, null before the first one; it is
+	 *            not modified
+	 * @return the new state
+	 * @throws IOException
+	 *             if the message is malformed, or the checksum shows that the
+	 *             board is out of sync with the server
+	 */
+	public static State decodeUpdate(State current, byte[] message) throws IOException {
+		if (message.length == 0) {
+			throw new IOException("Empty update");
+		}
+		if (message[0] == FULL) {
+			return decodeState(Arrays.copyOfRange(message, 1, message.length));
+		}
+		if (message[0] != DELTA || message.length < 3) {
+			throw new IOException("Unknown update: " + Arrays.toString(message));
+		}
+		if (current == null) {
+			throw new IOException("Delta received before the state");
+		}
+		int flags = message[1];
+		int count = message[2] & 0xff;
+		boolean checksum = (flags & CHECKSUM_FLAG) != 0;
+		if (message.length != 3 + 2 * count + (checksum ? 8 : 0)) {
+			throw new IOException("Wrong length of a delta of " + count + " boxes: " + message.length + " bytes");
+		}
+		Turn[] turns = Turn.values();
+		Pawn[] pawns = Pawn.values();
+		int turn = flags & TURN_MASK;
+		if (turn >= turns.length) {
+			throw new IOException("Unknown turn: " + turn);
+		}
+		State next = current.clone();
+		int size = next.getBoardSize();
+		for (int i = 0; i < count; i++) {
+			int row = (message[3 + 2 * i] >> 4) & 0x0f;
+			int column = message[3 + 2 * i] & 0x0f;
+			int pawn = message[4 + 2 * i];
+			if (row >= size || column >= size || pawn < 0 || pawn >= pawns.length) {
+				throw new IOException("Wrong change in a delta: " + Arrays.toString(message));
+			}
+			next.setPawn(row, column, pawns[pawn]);
+		}
+		next.setTurn(turns[turn]);
+		if (checksum) {
+			long key = 0;
+			for (int i = message.length - 8; i < message.length; i++) {
+				key = (key << 8) | (message[i] & 0xff);
+			}
+			if (key != next.getZobristKey()) {
+				throw new IOException("State out of sync with the server");
+			}
+		}
+		return next;
+	}
+
+	/**
+	 * Encodes the states sent to a client of the delta protocol: it remembers
+	 * the last state sent, so it serves a single client.
+	 */
+	public static class DeltaEncoder {
+
+		private State previous;
+		private int sinceChecksum;
+
+		/**
+		 * @return the message for the state, a delta from the last state
+		 *         encoded or the whole state
+		 */
+		public byte[] encode(State state) {
+			State last = this.previous;
+			this.previous = state.clone();
+			byte[] full = encodeState(state);
+			if (last == null || last.getBoardSize() != state.getBoardSize()) {
+				return this.full(full);
+			}
+			int size = state.getBoardSize();
+			byte[] changes = new byte[2 * size * size];
+			int count = 0;
+			for (int row = 0; row < size; row++) {
+				for (int column = 0; column < size; column++) {
+					Pawn pawn = state.getPawn(row, column);
+					if (pawn != last.getPawn(row, column)) {
+						changes[2 * count] = (byte) (row << 4 | column);
+						changes[2 * count + 1] = (byte) pawn.ordinal();
+						count++;
+					}
+				}
+			}
+			Turn turn = state.getTurn();
+			boolean checksum = ++this.sinceChecksum >= CHECKSUM_PERIOD || (turn != Turn.WHITE && turn != Turn.BLACK);
+			int length = 3 + 2 * count + (checksum ? 8 : 0);
+			if (length > 1 + full.length) {
+				return this.full(full);
+			}
+			byte[] message = new byte[length];
+			message[0] = DELTA;
+			message[1] = (byte) (turn.ordinal() | (checksum ? CHECKSUM_FLAG : 0));
+			message[2] = (byte) count;
+			System.arraycopy(changes, 0, message, 3, 2 * count);
+			if (checksum) {
+				long key = state.getZobristKey();
+				for (int i = length - 1; i >= length - 8; i--) {
+					message[i] = (byte) key;
+					key >>>= 8;
+				}
+				this.sinceChecksum = 0;
+			}
+			return message;
+		}
+
+		private byte[] full(byte[] state) {
+			// a whole state needs no checksum
+			this.sinceChecksum = 0;
+			byte[] message = new byte[1 + state.length];
+			message[0] = FULL;
+			System.arraycopy(state, 0, message, 1, state.length);
+			return message;
+		}
+	}
+
+	public static byte[] encodeAction(Action action) {
+		return new byte[] { (byte) (action.getRowFrom() << 4 | action.getColumnFrom()),
+				(byte) (action.getRowTo() << 4 | action.getColumnTo()) };
+	}
+
+	/**
+	 * @param turn
+	 *            the player to move, it is not part of the message
+	 * @throws IllegalArgumentException
+	 *             if the message is not a move: an error of the player, as a
+	 *             malformed JSON move, not a broken connection
+	 */
+	public static Action decodeAction(byte[] message, Turn turn) throws IOException {
+		if (message.length != 2) {
+			throw new IllegalArgumentException("Move message of " + message.length + " bytes: " + Arrays.toString(message));
+		}
+		return new Action(box(message[0]), box(message[1]), turn);
+	}
+
+	private static String box(byte b) {
+		int row = (b >> 4) & 0x0f;
+		int column = b & 0x0f;
+		if (row > 8 || column > 8) {
+			throw new IllegalArgumentException("Box out of the board: row " + row + ", column " + column);
+		}
+		return Move.boxName(row, column);
+	}
+
+}
@@ -3,4 +3,5 @@ package it.unibo.ai.didattica.competition.tablut.util;
 public class Configuration {
     public static final int whitePort = 5800;
     public static final int blackPort = 5801;
+    public static final int tournamentPort = 5802;
 }
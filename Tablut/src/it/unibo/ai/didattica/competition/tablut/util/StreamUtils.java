@@ -34,6 +34,25 @@ public class StreamUtils {
 		out.write(bytes, 0, bytes.length);
 	}
 	
+	/**
+	 * Invia un messaggio binario, con la stessa lunghezza iniziale di
+	 * writeString
+	 */
+	public static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+		out.writeInt(bytes.length);
+		out.write(bytes, 0, bytes.length);
+	}
+	
+	/**
+	 * Riceve un messaggio binario inviato con writeBytes
+	 */
+	public static byte[] readBytes(DataInputStream in) throws IOException {
+		int len = in.readInt();
+		byte[] bytes = new byte[len];
+		in.readFully(bytes, 0, len);
+		return bytes;
+	}
+	
 	public static String readString(DataInputStream in) throws IOException {
 		// Leggo la lunghezza dei byte in ingresso
 		int len = in.readInt();
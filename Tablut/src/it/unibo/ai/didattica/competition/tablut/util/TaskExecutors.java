@@ -0,0 +1,42 @@
+package it.unibo.ai.didattica.competition.tablut.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executors for tasks that spend most of their time waiting, such as the
+ * matches of a server waiting for the moves of the players.
+ */
+public class TaskExecutors {
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * @return an executor that starts a virtual thread for every task when
+     *         the JDK has them (21 or later), otherwise a cached pool of
+     *         platform threads
+     */
+    public static ExecutorService newPerTaskExecutor() {
+        try {
+            // looked up by reflection, so the project still builds on older JDKs
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * @return true if {@link #newPerTaskExecutor()} uses virtual threads
+     */
+    public static boolean hasVirtualThreads() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
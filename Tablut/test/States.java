@@ -0,0 +1,30 @@
+import it.unibo.ai.didattica.competition.tablut.domain.State;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+import it.unibo.ai.didattica.competition.tablut.domain.StateTablut;
+
+/**
+ * States shared by the tests
+ */
+final class States {
+
+	private States() {
+	}
+
+	/**
+	 * @return the initial state of Tablut with white to move, as the server
+	 *         starts the game
+	 */
+	static State whiteToMove() {
+		State state = new StateTablut();
+		state.setTurn(Turn.WHITE);
+		return state;
+	}
+
+	/**
+	 * @return true if the game is not over
+	 */
+	static boolean isOpen(State state) {
+		return state.getTurn() == Turn.WHITE || state.getTurn() == Turn.BLACK;
+	}
+
+}
@@ -0,0 +1,193 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import it.unibo.ai.didattica.competition.tablut.domain.Action;
+import it.unibo.ai.didattica.competition.tablut.domain.BitboardState;
+import it.unibo.ai.didattica.competition.tablut.domain.GameAshtonTablut;
+import it.unibo.ai.didattica.competition.tablut.domain.Move;
+import it.unibo.ai.didattica.competition.tablut.domain.MoveGenerator;
+import it.unibo.ai.didattica.competition.tablut.domain.State;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Pawn;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+import it.unibo.ai.didattica.competition.tablut.domain.StateBrandub;
+import it.unibo.ai.didattica.competition.tablut.domain.StateTablut;
+import it.unibo.ai.didattica.competition.tablut.util.BinaryProtocol;
+
+class TestBinaryProtocol {
+
+	@Test
+	void testInitialStates() throws IOException {
+		State tablut = new StateTablut();
+		assertEquals(tablut, BinaryProtocol.decodeState(BinaryProtocol.encodeState(tablut)));
+		assertEquals(23, BinaryProtocol.encodeState(tablut).length);
+		State brandub = new StateBrandub();
+		assertEquals(brandub, BinaryProtocol.decodeState(BinaryProtocol.encodeState(brandub)));
+	}
+
+	@Test
+	void testEveryTurn() throws IOException {
+		for (Turn turn : Turn.values()) {
+			State state = new StateTablut();
+			state.setTurn(turn);
+			assertEquals(state, BinaryProtocol.decodeState(BinaryProtocol.encodeState(state)));
+		}
+	}
+
+	@Test
+	void testEmptyThrone() throws IOException {
+		State state = new StateTablut();
+		Pawn[][] board = state.getBoard();
+		board[4][4] = Pawn.THRONE;
+		board[4][1] = Pawn.KING;
+		state.setBoard(board);
+		State decoded = BinaryProtocol.decodeState(BinaryProtocol.encodeState(state));
+		assertEquals(Pawn.THRONE, decoded.getPawn(4, 4));
+		assertEquals(state, decoded);
+	}
+
+	@Test
+	void testRandomGames() throws IOException {
+		Random random = new Random(1);
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		for (int game = 0; game < 50; game++) {
+			GameAshtonTablut rules = new GameAshtonTablut(0, -1);
+			State state = BitboardState.fromState(States.whiteToMove());
+			for (int ply = 0; ply < 200 && States.isOpen(state); ply++) {
+				int n = MoveGenerator.generate(state, moves);
+				if (n == 0) {
+					break;
+				}
+				state = rules.applyMove(state, moves[random.nextInt(n)]);
+				State expected = ((BitboardState) state).toStateTablut();
+				assertEquals(expected, BinaryProtocol.decodeState(BinaryProtocol.encodeState(state)));
+				assertEquals(expected, BinaryProtocol.decodeState(BinaryProtocol.encodeState(expected)));
+			}
+		}
+	}
+
+	@Test
+	void testActions() throws IOException {
+		for (int from = 0; from < 81; from++) {
+			for (int to = 0; to < 81; to++) {
+				Action action = new Action(Move.boxName(from / 9, from % 9), Move.boxName(to / 9, to % 9), Turn.BLACK);
+				Action decoded = BinaryProtocol.decodeAction(BinaryProtocol.encodeAction(action), Turn.BLACK);
+				assertEquals(action.getFrom(), decoded.getFrom());
+				assertEquals(action.getTo(), decoded.getTo());
+				assertEquals(Turn.BLACK, decoded.getTurn());
+			}
+		}
+	}
+
+	@Test
+	void testMalformedMessages() {
+		byte[] state = BinaryProtocol.encodeState(new StateTablut());
+		byte[] shorter = new byte[state.length - 1];
+		System.arraycopy(state, 0, shorter, 0, shorter.length);
+		assertThrows(IOException.class, () -> BinaryProtocol.decodeState(shorter));
+		assertThrows(IOException.class, () -> BinaryProtocol.decodeState(new byte[1]));
+		byte[] wrongTurn = state.clone();
+		wrongTurn[0] = 7;
+		assertThrows(IOException.class, () -> BinaryProtocol.decodeState(wrongTurn));
+		byte[] wrongSize = BinaryProtocol.encodeState(new StateTablut());
+		wrongSize[1] = 8;
+		assertThrows(IOException.class, () -> BinaryProtocol.decodeState(wrongSize));
+
+		assertThrows(IllegalArgumentException.class, () -> BinaryProtocol.decodeAction(new byte[3], Turn.WHITE));
+		assertThrows(IllegalArgumentException.class,
+				() -> BinaryProtocol.decodeAction(new byte[] { 0, (byte) 0x90 }, Turn.WHITE));
+	}
+
+	@Test
+	void testDeltaGames() throws IOException {
+		Random random = new Random(2);
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		for (int game = 0; game < 50; game++) {
+			GameAshtonTablut rules = new GameAshtonTablut(0, -1);
+			BinaryProtocol.DeltaEncoder encoder = new BinaryProtocol.DeltaEncoder();
+			State state = BitboardState.fromState(States.whiteToMove());
+			byte[] message = encoder.encode(((BitboardState) state).toStateTablut());
+			assertEquals(BinaryProtocol.FULL, message[0]);
+			State received = BinaryProtocol.decodeUpdate(null, message);
+			int sinceChecksum = 0;
+			for (int ply = 0; ply < 200 && States.isOpen(state); ply++) {
+				int n = MoveGenerator.generate(state, moves);
+				if (n == 0) {
+					break;
+				}
+				state = rules.applyMove(state, moves[random.nextInt(n)]);
+				State expected = ((BitboardState) state).toStateTablut();
+				message = encoder.encode(expected);
+				received = BinaryProtocol.decodeUpdate(received, message);
+				assertEquals(expected, received);
+
+				if (message[0] == BinaryProtocol.DELTA && !hasChecksum(message)) {
+					sinceChecksum++;
+					assertTrue(sinceChecksum < BinaryProtocol.CHECKSUM_PERIOD, "checksum missing");
+					assertTrue(States.isOpen(expected), "final state without checksum");
+				} else {
+					sinceChecksum = 0;
+				}
+			}
+		}
+	}
+
+	@Test
+	void testChecksumMismatch() throws IOException {
+		BinaryProtocol.DeltaEncoder encoder = new BinaryProtocol.DeltaEncoder();
+		State state = States.whiteToMove();
+		State received = BinaryProtocol.decodeUpdate(null, encoder.encode(state));
+		// the client copy goes out of sync without noticing, until the next
+		// checksum
+		received.setPawn(0, 0, Pawn.BLACK);
+		boolean checked = false;
+		for (int i = 0; i < BinaryProtocol.CHECKSUM_PERIOD && !checked; i++) {
+			state = state.clone();
+			state.setTurn(state.getTurn() == Turn.WHITE ? Turn.BLACK : Turn.WHITE);
+			byte[] message = encoder.encode(state);
+			if (hasChecksum(message)) {
+				final State current = received;
+				assertThrows(IOException.class, () -> BinaryProtocol.decodeUpdate(current, message));
+				checked = true;
+			} else {
+				received = BinaryProtocol.decodeUpdate(received, message);
+			}
+		}
+		assertTrue(checked, "no checksum in " + BinaryProtocol.CHECKSUM_PERIOD + " deltas");
+	}
+
+	@Test
+	void testCorruptedChecksum() throws IOException {
+		BinaryProtocol.DeltaEncoder encoder = new BinaryProtocol.DeltaEncoder();
+		State state = States.whiteToMove();
+		State received = BinaryProtocol.decodeUpdate(null, encoder.encode(state));
+		state = state.clone();
+		state.setTurn(Turn.WHITEWIN);
+		// a final state always carries the checksum
+		byte[] message = encoder.encode(state);
+		assertTrue(hasChecksum(message));
+		assertEquals(state, BinaryProtocol.decodeUpdate(received, message));
+		message[message.length - 1] ^= 1;
+		assertThrows(IOException.class, () -> BinaryProtocol.decodeUpdate(received, message));
+	}
+
+	@Test
+	void testMalformedUpdates() {
+		assertThrows(IOException.class, () -> BinaryProtocol.decodeUpdate(null, new byte[0]));
+		assertThrows(IOException.class,
+				() -> BinaryProtocol.decodeUpdate(null, new byte[] { BinaryProtocol.DELTA, 0, 0 }));
+		assertThrows(IOException.class, () -> BinaryProtocol.decodeUpdate(States.whiteToMove(),
+				new byte[] { BinaryProtocol.DELTA, 0, 2, 0, 1 }));
+		assertThrows(IOException.class, () -> BinaryProtocol.decodeUpdate(States.whiteToMove(),
+				new byte[] { BinaryProtocol.DELTA, 0, 1, (byte) 0x90, 1 }));
+		assertThrows(IOException.class, () -> BinaryProtocol.decodeUpdate(States.whiteToMove(), new byte[] { 5, 0, 0 }));
+	}
+
+	private static boolean hasChecksum(byte[] message) {
+		return message[0] == BinaryProtocol.DELTA && (message[1] & BinaryProtocol.CHECKSUM_FLAG) != 0;
+	}
+
+}
@@ -0,0 +1,113 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import it.unibo.ai.didattica.competition.tablut.domain.Action;
+import it.unibo.ai.didattica.competition.tablut.domain.BitboardState;
+import it.unibo.ai.didattica.competition.tablut.domain.GameAshtonTablut;
+import it.unibo.ai.didattica.competition.tablut.domain.Move;
+import it.unibo.ai.didattica.competition.tablut.domain.MoveGenerator;
+import it.unibo.ai.didattica.competition.tablut.domain.State;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Pawn;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+
+/**
+ * Checks the moves of MoveGenerator against the ones accepted by
+ * GameAshtonTablut.checkMove: every pawn of the player to move is tried
+ * towards every box of its row and column
+ */
+class TestMoveGenerator {
+
+	@Test
+	void testInitialState() throws IOException {
+		// the king on the throne, the black pawns in the citadels
+		State white = States.whiteToMove();
+		compareWithRules(white);
+		State black = white.clone();
+		black.setTurn(Turn.BLACK);
+		compareWithRules(black);
+	}
+
+	@Test
+	void testRandomGames() throws IOException {
+		Random random = new Random(5);
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int citadelExits = 0;
+		int citadelEntries = 0;
+		int throneExits = 0;
+		for (int game = 0; game < 10; game++) {
+			GameAshtonTablut rules = new GameAshtonTablut(0, -1);
+			State state = BitboardState.fromState(States.whiteToMove());
+			for (int ply = 0; ply < 200 && States.isOpen(state); ply++) {
+				compareWithRules(state);
+				compareWithRules(((BitboardState) state).toStateTablut());
+				int n = MoveGenerator.generate(state, moves);
+				if (n == 0) {
+					break;
+				}
+				for (int i = 0; i < n; i++) {
+					boolean fromCitadel = MoveGenerator.isCitadel(Move.getFrom(moves[i]));
+					if (fromCitadel && !MoveGenerator.isCitadel(Move.getTo(moves[i]))) {
+						citadelExits++;
+					}
+					if (fromCitadel && MoveGenerator.isCitadel(Move.getTo(moves[i]))) {
+						citadelEntries++;
+					}
+					if (Move.getFrom(moves[i]) == Move.box(4, 4)) {
+						throneExits++;
+					}
+				}
+				state = rules.applyMove(state, moves[random.nextInt(n)]);
+			}
+		}
+		// the games went through the special boxes
+		assertTrue(citadelExits > 0);
+		assertTrue(citadelEntries > 0);
+		assertTrue(throneExits > 0);
+	}
+
+	/**
+	 * Compares the generated moves with the from-to pairs that checkMove does
+	 * not reject, each tried on a copy of the state: a legal move only
+	 * changes the draw counters of the rules, never the verdict on the next
+	 * ones
+	 */
+	private static void compareWithRules(State state) throws IOException {
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		int n = MoveGenerator.generate(state, moves);
+		Set<Integer> generated = new HashSet<>();
+		for (int i = 0; i < n; i++) {
+			assertTrue(generated.add(moves[i]), "duplicate " + Move.toString(moves[i]));
+		}
+
+		GameAshtonTablut rules = new GameAshtonTablut(0, -1);
+		Set<Integer> accepted = new HashSet<>();
+		Turn turn = state.getTurn();
+		for (int from = 0; from < 81; from++) {
+			Pawn pawn = state.getPawn(from / 9, from % 9);
+			boolean own = turn == Turn.BLACK ? pawn == Pawn.BLACK : pawn == Pawn.WHITE || pawn == Pawn.KING;
+			if (!own) {
+				continue;
+			}
+			for (int to = 0; to < 81; to++) {
+				if (to / 9 != from / 9 && to % 9 != from % 9) {
+					continue;
+				}
+				Action action = new Action(Move.boxName(from / 9, from % 9), Move.boxName(to / 9, to % 9), turn);
+				try {
+					rules.checkMove(state.clone(), action);
+					accepted.add(Move.encode(from, to, turn));
+				} catch (Exception e) {
+					// an illegal move
+				}
+			}
+		}
+		assertEquals(accepted, generated, state.toString());
+	}
+
+}
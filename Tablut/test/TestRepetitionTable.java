@@ -0,0 +1,129 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import it.unibo.ai.didattica.competition.tablut.domain.RepetitionTable;
+
+/**
+ * Checks the RepetitionTable against the list of states used before it by
+ * GameAshtonTablut: the oldest state is removed when the list holds more than
+ * cache_size states, then the new one is added
+ */
+class TestRepetitionTable {
+
+	@Test
+	void testUnboundedCache() {
+		compareWithList(-1, 1);
+	}
+
+	@Test
+	void testEmptyCache() {
+		compareWithList(0, 2);
+	}
+
+	@Test
+	void testSmallCache() {
+		compareWithList(1, 3);
+		compareWithList(5, 4);
+	}
+
+	@Test
+	void testLargeCache() {
+		compareWithList(100, 5);
+	}
+
+	@Test
+	void testEvictionOfDuplicates() {
+		RepetitionTable table = new RepetitionTable(2);
+		table.add(7);
+		table.add(7);
+		table.add(7);
+		assertEquals(3, table.count(7));
+		table.add(8);
+		assertEquals(2, table.count(7));
+		assertEquals(1, table.count(8));
+		table.add(8);
+		table.add(8);
+		assertEquals(0, table.count(7));
+		assertEquals(3, table.count(8));
+		assertEquals(3, table.size());
+	}
+
+	@Test
+	void testBackwardShiftDeletion() {
+		// keys with the same low bits share their home slot, so deleting one
+		// must shift the others back to keep them reachable
+		RepetitionTable table = new RepetitionTable(3);
+		long[] keys = { 64, 128, 192, 256 };
+		for (long key : keys) {
+			table.add(key);
+		}
+		for (int i = 0; i < 3; i++) {
+			table.add(1000 + i);
+			for (int j = 0; j < keys.length; j++) {
+				assertEquals(j <= i ? 0 : 1, table.count(keys[j]), "key " + keys[j] + " after " + (i + 1) + " evictions");
+			}
+		}
+	}
+
+	@Test
+	void testClear() {
+		RepetitionTable table = new RepetitionTable(4);
+		table.add(1);
+		table.add(2);
+		table.clear();
+		assertEquals(0, table.size());
+		assertEquals(0, table.count(1));
+		table.add(1);
+		assertEquals(1, table.count(1));
+	}
+
+	/**
+	 * Adds random positions, drawn from a few keys that collide in the hash
+	 * table, and compares every count with the list; the cache is cleared now
+	 * and then, as after a capture
+	 */
+	private static void compareWithList(int cacheSize, long seed) {
+		Random random = new Random(seed);
+		RepetitionTable table = new RepetitionTable(cacheSize);
+		List<Long> list = new ArrayList<>();
+		long[] keys = new long[12];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = i % 3 == 0 ? random.nextLong() : (long) i << 40 | 5;
+		}
+		for (int step = 0; step < 20000; step++) {
+			if (random.nextInt(200) == 0) {
+				table.clear();
+				list.clear();
+			}
+			long key = keys[random.nextInt(keys.length)];
+			assertEquals(countInList(list, key), table.count(key), "step " + step);
+
+			if (cacheSize >= 0 && list.size() > cacheSize) {
+				list.remove(0);
+			}
+			list.add(key);
+			table.add(key);
+
+			assertEquals(list.size(), table.size(), "step " + step);
+			for (long k : keys) {
+				assertEquals(countInList(list, k), table.count(k), "step " + step);
+			}
+		}
+	}
+
+	private static int countInList(List<Long> list, long key) {
+		int count = 0;
+		for (long k : list) {
+			if (k == key) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,131 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import it.unibo.ai.didattica.competition.tablut.domain.Action;
+import it.unibo.ai.didattica.competition.tablut.domain.BitboardState;
+import it.unibo.ai.didattica.competition.tablut.domain.GameAshtonTablut;
+import it.unibo.ai.didattica.competition.tablut.domain.Move;
+import it.unibo.ai.didattica.competition.tablut.domain.MoveGenerator;
+import it.unibo.ai.didattica.competition.tablut.domain.State;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Pawn;
+import it.unibo.ai.didattica.competition.tablut.domain.State.Turn;
+import it.unibo.ai.didattica.competition.tablut.domain.Zobrist;
+
+/**
+ * Checks the keys that BitboardState updates at every change against the
+ * keys computed from scratch
+ */
+class TestZobrist {
+
+	@Test
+	void testInitialState() {
+		State state = States.whiteToMove();
+		BitboardState bitboard = BitboardState.fromState(state);
+		assertEquals(Zobrist.keyOf(state), state.getZobristKey());
+		assertEquals(state.getZobristKey(), bitboard.getZobristKey());
+		assertEquals(Zobrist.keyOf(bitboard), bitboard.getZobristKey());
+	}
+
+	@Test
+	void testAppliedMoves() {
+		Random random = new Random(3);
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		for (int game = 0; game < 100; game++) {
+			GameAshtonTablut rules = new GameAshtonTablut(0, -1);
+			State state = BitboardState.fromState(States.whiteToMove());
+			for (int ply = 0; ply < 200 && States.isOpen(state); ply++) {
+				int n = MoveGenerator.generate(state, moves);
+				if (n == 0) {
+					break;
+				}
+				state = rules.applyMove(state, moves[random.nextInt(n)]);
+				assertKey(state);
+			}
+		}
+	}
+
+	@Test
+	void testCheckedMoves() throws Exception {
+		Random random = new Random(4);
+		int[] moves = new int[MoveGenerator.MAX_MOVES];
+		for (int game = 0; game < 20; game++) {
+			GameAshtonTablut rules = new GameAshtonTablut(0, -1);
+			State state = BitboardState.fromState(States.whiteToMove());
+			for (int ply = 0; ply < 200 && States.isOpen(state); ply++) {
+				int n = MoveGenerator.generate(state, moves);
+				if (n == 0) {
+					break;
+				}
+				state = rules.checkMove(state, Move.toAction(moves[random.nextInt(n)]));
+				assertKey(state);
+			}
+		}
+	}
+
+	@Test
+	void testTranspositions() throws IOException {
+		// two games: the positions of one are not repetitions for the other
+		GameAshtonTablut rules = new GameAshtonTablut(0, -1);
+		GameAshtonTablut otherRules = new GameAshtonTablut(0, -1);
+		State first = BitboardState.fromState(States.whiteToMove());
+		State second = first.clone();
+		// the same two white and two black moves, in different orders
+		first = rules.applyMove(first, Move.fromAction(new Action("e3", "d3", Turn.WHITE)));
+		first = rules.applyMove(first, Move.fromAction(new Action("a4", "b4", Turn.BLACK)));
+		first = rules.applyMove(first, Move.fromAction(new Action("c5", "c7", Turn.WHITE)));
+		first = rules.applyMove(first, Move.fromAction(new Action("i6", "h6", Turn.BLACK)));
+		second = otherRules.applyMove(second, Move.fromAction(new Action("c5", "c7", Turn.WHITE)));
+		second = otherRules.applyMove(second, Move.fromAction(new Action("i6", "h6", Turn.BLACK)));
+		second = otherRules.applyMove(second, Move.fromAction(new Action("e3", "d3", Turn.WHITE)));
+		second = otherRules.applyMove(second, Move.fromAction(new Action("a4", "b4", Turn.BLACK)));
+		assertEquals(first, second);
+		assertEquals(first.getZobristKey(), second.getZobristKey());
+		assertKey(first);
+	}
+
+	@Test
+	void testDirectChanges() {
+		BitboardState state = BitboardState.fromState(States.whiteToMove());
+		state.setTurn(Turn.BLACK);
+		assertKey(state);
+		state.removePawn(4, 4);
+		assertKey(state);
+		state.setPawn(2, 2, Pawn.KING);
+		assertKey(state);
+		state.setPawn(0, 3, Pawn.WHITE);
+		assertKey(state);
+		state.setPawn(0, 3, Pawn.EMPTY);
+		assertKey(state);
+		BitboardState copy = state.clone();
+		copy.setPawn(8, 8, Pawn.BLACK);
+		assertKey(copy);
+		assertKey(state);
+		assertNotEquals(state.getZobristKey(), copy.getZobristKey());
+	}
+
+	@Test
+	void testSetBoard() {
+		BitboardState state = BitboardState.fromState(States.whiteToMove());
+		Pawn[][] board = state.getBoard();
+		board[4][4] = Pawn.THRONE;
+		board[4][1] = Pawn.KING;
+		state.setBoard(board);
+		assertKey(state);
+		// the array stays the caller's: later writes do not reach the state
+		board[4][1] = Pawn.EMPTY;
+		assertEquals(Pawn.KING, state.getPawn(4, 1));
+		assertEquals(Pawn.KING, state.getBoard()[4][1]);
+		assertKey(state);
+	}
+
+	private static void assertKey(State state) {
+		long expected = Zobrist.keyOf(state);
+		assertEquals(expected, state.getZobristKey(), state.toString());
+		assertEquals(expected, ((BitboardState) state).toStateTablut().getZobristKey());
+	}
+
+}